@@ -0,0 +1,49 @@
+package pet.store.controller;
+
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import lombok.extern.slf4j.Slf4j;
+import pet.store.controller.model.ChangeFeedData;
+import pet.store.service.ChangeFeedService;
+
+/*
+ * The change feed lets clients find out what changed since they last looked
+ * instead of downloading every pet store again. GET /pet_store/changes?since=N
+ * long-polls for the changes after cursor N. The same URI with an
+ * "Accept: text/event-stream" header opens a Server-Sent Events stream, which
+ * browsers resume with the Last-Event-ID header after reconnecting.
+ */
+@RestController
+@RequestMapping("/pet_store/changes")
+@Slf4j
+public class ChangeFeedController {
+
+	@Autowired
+	private ChangeFeedService changeFeedService;
+
+	@GetMapping
+	public DeferredResult<ChangeFeedData> pollChanges(@RequestParam(required = false) Long since,
+			@RequestParam(required = false) Long timeoutMs) {
+		log.debug("Polling changes since cursor {}", since);
+		return changeFeedService.pollChanges(since, timeoutMs);
+	}
+
+	@GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+			@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+		Long cursor = Objects.nonNull(lastEventId) ? lastEventId : since;
+
+		log.info("Streaming changes since cursor {}", cursor);
+		return changeFeedService.streamChanges(cursor);
+	}
+}
@@ -7,18 +7,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import lombok.extern.slf4j.Slf4j;
+import pet.store.controller.limit.RequestPriority;
+import pet.store.controller.limit.RequestPriority.Level;
+import pet.store.controller.model.KeysetPage;
+import pet.store.controller.model.NearestPetStoreResultData;
+import pet.store.controller.model.PatchResultData;
 import pet.store.controller.model.PetStoreCustomer;
 import pet.store.controller.model.PetStoreData;
 import pet.store.controller.model.PetStoreEmployee;
+import pet.store.controller.model.PetStoreMultiGetData;
+import pet.store.service.NearestPetStoreService;
 import pet.store.service.PetStoreService;
 
 /*
@@ -55,6 +64,9 @@ public class PetStoreController {
 	@Autowired
 	private PetStoreService petStoreService;
 
+	@Autowired
+	private NearestPetStoreService nearestPetStoreService;
+
 	@PostMapping
 	@ResponseStatus(code = HttpStatus.CREATED)
 	public PetStoreData insertPetStore(@RequestBody PetStoreData petStoreData) {
@@ -88,6 +100,26 @@ public class PetStoreController {
 		return petStoreService.savePetStore(petStoreData);
 	}
 
+	/*
+	 * PATCH changes only the fields present in the request body, for example
+	 * {"petStorePhone": "555-1234"}. A field sent as null is cleared. Fields that
+	 * are left out keep their current values, unlike PUT.
+	 */
+	@PatchMapping("/{petStoreId}")
+	public PetStoreData patchPetStore(@PathVariable Long petStoreId, @RequestBody Map<String, Object> changes) {
+		log.info("Patching pet store with ID={} fields {}", petStoreId, changes.keySet());
+		return petStoreService.patchPetStore(petStoreId, changes);
+	}
+
+	/*
+	 * Bulk PATCH: a list of items, each with a petStoreId and the fields to change.
+	 */
+	@PatchMapping
+	public PatchResultData patchPetStores(@RequestBody List<Map<String, Object>> patches) {
+		log.info("Patching {} pet stores", patches.size());
+		return petStoreService.patchPetStores(patches);
+	}
+
 	/* @formatter:off
 	 * Create a method in the controller that will add an employee to the employee table. The method 
 	 * should be annotated with @PostMapping and @ResponseStatus.
@@ -128,6 +160,44 @@ public class PetStoreController {
 		return petStoreService.saveCustomer(petStoreId, petStoreCustomer);
 	}
 
+	/*
+	 * Makes an existing customer, possibly of a pet store on another shard, a
+	 * member of this pet store as well.
+	 */
+	@PutMapping("/{petStoreId}/customer/{customerId}")
+	public PetStoreCustomer addCustomer(@PathVariable Long petStoreId, @PathVariable Long customerId) {
+		log.info("Adding customer with ID={} to pet store with ID={}", customerId, petStoreId);
+		return petStoreService.addCustomer(petStoreId, customerId);
+	}
+
+	@PatchMapping("/{petStoreId}/employee/{employeeId}")
+	public PetStoreEmployee patchEmployee(@PathVariable Long petStoreId, @PathVariable Long employeeId,
+			@RequestBody Map<String, Object> changes) {
+		log.info("Patching employee with ID={} fields {}", employeeId, changes.keySet());
+		return petStoreService.patchEmployee(petStoreId, employeeId, changes);
+	}
+
+	@PatchMapping("/{petStoreId}/employee")
+	public PatchResultData patchEmployees(@PathVariable Long petStoreId,
+			@RequestBody List<Map<String, Object>> patches) {
+		log.info("Patching {} employees of pet store with ID={}", patches.size(), petStoreId);
+		return petStoreService.patchEmployees(petStoreId, patches);
+	}
+
+	@PatchMapping("/{petStoreId}/customer/{customerId}")
+	public PetStoreCustomer patchCustomer(@PathVariable Long petStoreId, @PathVariable Long customerId,
+			@RequestBody Map<String, Object> changes) {
+		log.info("Patching customer with ID={} fields {}", customerId, changes.keySet());
+		return petStoreService.patchCustomer(petStoreId, customerId, changes);
+	}
+
+	@PatchMapping("/{petStoreId}/customer")
+	public PatchResultData patchCustomers(@PathVariable Long petStoreId,
+			@RequestBody List<Map<String, Object>> patches) {
+		log.info("Patching {} customers of pet store with ID={}", patches.size(), petStoreId);
+		return petStoreService.patchCustomers(petStoreId, patches);
+	}
+
 	/*
 	 * In this section you will write the methods to list all pet stores. This
 	 * method will return summary data for the pet stores. In other words, it will
@@ -140,11 +210,46 @@ public class PetStoreController {
 	 * retrieveAllPetStores() method in the service class.
 	 */
 	@GetMapping
+	@RequestPriority(Level.LOW)
 	public List<PetStoreData> retrieveAllPetStores() {
 		log.info("Retrieve all pet stores called");
 		return petStoreService.retrieveAllPetStores();
 	}
 
+	/*
+	 * Retrieves many pet stores by ID in one call, for example
+	 * GET /pet_store?ids=1,2,3&expand=employees. Use the POST variant when the list
+	 * of IDs is too long for a URI.
+	 */
+	@GetMapping(params = "ids")
+	@RequestPriority(Level.NORMAL)
+	public PetStoreMultiGetData retrievePetStoresByIds(@RequestParam List<Long> ids,
+			@RequestParam(required = false) List<String> expand) {
+		log.info("Retrieving {} pet stores by ID", ids.size());
+		return petStoreService.retrievePetStoresByIds(ids, expand);
+	}
+
+	@PostMapping("/multi_get")
+	@RequestPriority(Level.NORMAL)
+	public PetStoreMultiGetData multiGetPetStores(@RequestBody List<Long> ids,
+			@RequestParam(required = false) List<String> expand) {
+		log.info("Retrieving {} pet stores by ID", ids.size());
+		return petStoreService.retrievePetStoresByIds(ids, expand);
+	}
+
+	/*
+	 * Finds the pet stores closest to a zip code or to a location, nearest first,
+	 * for example GET /pet_store/nearest?zip=84101&k=3&radiusKm=50. The lookup runs
+	 * against an in-memory index and doesn't query the database.
+	 */
+	@GetMapping("/nearest")
+	public NearestPetStoreResultData retrieveNearestPetStores(@RequestParam(required = false) String zip,
+			@RequestParam(required = false) Double lat, @RequestParam(required = false) Double lon,
+			@RequestParam(required = false) Integer k, @RequestParam(required = false) Double radiusKm) {
+		log.info("Finding pet stores nearest to zip={} lat={} lon={}", zip, lat, lon);
+		return nearestPetStoreService.findNearest(zip, lat, lon, k, radiusKm);
+	}
+
 	/*
 	 * Add a controller method to retrieve a single pet store given the pet store
 	 * ID. It will be very similar to the retrieve all pet stores method except that
@@ -157,6 +262,27 @@ public class PetStoreController {
 		return petStoreService.retrievePetStoreById(petStoreId);
 	}
 
+	/*
+	 * Lists the employees of a pet store one page at a time. Pass the nextAfterId
+	 * value from the previous response as afterId to get the next page.
+	 */
+	@GetMapping("/{petStoreId}/employee")
+	public KeysetPage<PetStoreEmployee> retrieveEmployees(@PathVariable Long petStoreId,
+			@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer pageSize,
+			@RequestParam(required = false) String employeeJobTitle,
+			@RequestParam(required = false) String lastNamePrefix) {
+		log.info("Retrieving employees for pet store with ID={} after ID={}", petStoreId, afterId);
+		return petStoreService.retrieveEmployees(petStoreId, afterId, pageSize, employeeJobTitle, lastNamePrefix);
+	}
+
+	@GetMapping("/{petStoreId}/customer")
+	public KeysetPage<PetStoreCustomer> retrieveCustomers(@PathVariable Long petStoreId,
+			@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer pageSize,
+			@RequestParam(required = false) String lastNamePrefix) {
+		log.info("Retrieving customers for pet store with ID={} after ID={}", petStoreId, afterId);
+		return petStoreService.retrieveCustomers(petStoreId, afterId, pageSize, lastNamePrefix);
+	}
+
 	@DeleteMapping
 	public PetStoreData deleteAllPetStores() {
 		log.info("Attempting to delete all pet stores");
@@ -0,0 +1,36 @@
+package pet.store.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.extern.slf4j.Slf4j;
+import pet.store.controller.model.ChangeEvent.EntityType;
+import pet.store.controller.model.SearchResultData;
+import pet.store.service.SearchService;
+
+/*
+ * Searches customers by name or email and employees by name or job title, for
+ * example GET /search?q=jo%20smi&petStoreId=1&entityType=CUSTOMER. Each word of
+ * the query may be the start of a word. The search runs against an in-memory
+ * index and doesn't query the database.
+ */
+@RestController
+@RequestMapping("/search")
+@Slf4j
+public class SearchController {
+
+	@Autowired
+	private SearchService searchService;
+
+	@GetMapping
+	public List<SearchResultData> search(@RequestParam String q, @RequestParam(required = false) Long petStoreId,
+			@RequestParam(required = false) EntityType entityType, @RequestParam(required = false) Integer limit) {
+		log.info("Searching for \"{}\" in pet store with ID={}", q, petStoreId);
+		return searchService.search(q, petStoreId, entityType, limit);
+	}
+}
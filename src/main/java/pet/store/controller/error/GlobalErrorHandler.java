@@ -4,8 +4,11 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.NoSuchElementException;
 
+import org.springframework.beans.TypeMismatchException;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -14,6 +17,7 @@ import org.springframework.web.context.request.WebRequest;
 
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import pet.store.controller.limit.ConcurrencyLimitExceededException;
 
 @RestControllerAdvice
 @Slf4j
@@ -38,6 +42,16 @@ public class GlobalErrorHandler {
 		return buildExceptionMessage(ex, HttpStatus.BAD_REQUEST, webRequest, LogStatus.MESSAGE_ONLY);
 	}
 
+	/*
+	 * A path variable or request parameter that can't be converted, such as a
+	 * pet store ID that isn't a number, is a bad request.
+	 */
+	@ExceptionHandler(TypeMismatchException.class)
+	@ResponseStatus(code = HttpStatus.BAD_REQUEST)
+	public ExceptionMessage handleTypeMismatchException(TypeMismatchException ex, WebRequest webRequest) {
+		return buildExceptionMessage(ex, HttpStatus.BAD_REQUEST, webRequest, LogStatus.MESSAGE_ONLY);
+	}
+
 	@ExceptionHandler(UnsupportedOperationException.class)
 	@ResponseStatus(code = HttpStatus.METHOD_NOT_ALLOWED)
 	public ExceptionMessage handleUnsupportedOperationException(UnsupportedOperationException ex,
@@ -63,6 +77,19 @@ public class GlobalErrorHandler {
 		return buildExceptionMessage(ex, HttpStatus.CONFLICT, webRequest, LogStatus.MESSAGE_ONLY);
 	}
 
+	/*
+	 * Requests shed by the concurrency limiter get a 429 or 503 status with a
+	 * Retry-After header so well behaved clients back off.
+	 */
+	@ExceptionHandler(ConcurrencyLimitExceededException.class)
+	public ResponseEntity<ExceptionMessage> handleConcurrencyLimitExceededException(
+			ConcurrencyLimitExceededException ex, WebRequest webRequest) {
+		ExceptionMessage excMsg = buildExceptionMessage(ex, ex.getStatus(), webRequest, LogStatus.MESSAGE_ONLY);
+
+		return ResponseEntity.status(ex.getStatus())
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds())).body(excMsg);
+	}
+
 	private ExceptionMessage buildExceptionMessage(Exception ex, HttpStatus status, WebRequest webRequest,
 			LogStatus logStatus) {
 		String message = ex.toString();
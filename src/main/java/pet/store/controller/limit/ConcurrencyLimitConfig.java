@@ -0,0 +1,30 @@
+package pet.store.controller.limit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Registers the concurrency limit interceptor for the controller endpoints.
+ * Set pet-store.concurrency-limit.enabled to false to turn load shedding off.
+ */
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+@ConditionalOnProperty(name = "pet-store.concurrency-limit.enabled", matchIfMissing = true)
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+	private final ConcurrencyLimitInterceptor interceptor;
+
+	public ConcurrencyLimitConfig(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+		this.interceptor = new ConcurrencyLimitInterceptor(properties, meterRegistry);
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(interceptor).addPathPatterns("/pet_store", "/pet_store/**", "/search");
+	}
+}
@@ -0,0 +1,24 @@
+package pet.store.controller.limit;
+
+import org.springframework.http.HttpStatus;
+
+import lombok.Getter;
+
+/*
+ * Thrown when a request is shed by the concurrency limiter. The status is 429
+ * if the endpoint itself is at its limit and 503 if the whole server is.
+ */
+@Getter
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final HttpStatus status;
+	private final long retryAfterSeconds;
+
+	public ConcurrencyLimitExceededException(String message, HttpStatus status, long retryAfterSeconds) {
+		super(message);
+		this.status = status;
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+}
@@ -0,0 +1,146 @@
+package pet.store.controller.limit;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import pet.store.controller.limit.RequestPriority.Level;
+
+/*
+ * Sheds load before a request reaches the controller. Each request must be
+ * admitted by two limiters: the server limiter, shared by all endpoints, which
+ * admits lower priority requests only while the server is lightly loaded, and
+ * the limiter of the endpoint itself. Requests that are not admitted fail fast
+ * with a ConcurrencyLimitExceededException instead of waiting for a Tomcat
+ * thread or a database connection.
+ *
+ * Asynchronous requests (long-polls and event streams) give their permits back
+ * as soon as the handler returns, so an idle waiting client doesn't count
+ * against the limit.
+ */
+@Slf4j
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+	private static final String SERVER = "server";
+	private static final String ACQUIRED_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".acquired";
+
+	private final ConcurrencyLimitProperties properties;
+	private final MeterRegistry meterRegistry;
+	private final GradientLimiter serverLimiter;
+	private final Map<String, GradientLimiter> endpointLimiters = new ConcurrentHashMap<>();
+
+	public ConcurrencyLimitInterceptor(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+		this.serverLimiter = new GradientLimiter(properties.getServerInitialLimit(), properties.getMinLimit(),
+				properties.getServerMaxLimit());
+
+		registerMetrics(SERVER, serverLimiter);
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (!(handler instanceof HandlerMethod handlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+			return true;
+		}
+
+		Level priority = findPriority(request, handlerMethod);
+		String endpoint = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+		GradientLimiter endpointLimiter = endpointLimiters.computeIfAbsent(endpoint, this::createLimiter);
+
+		if (!serverLimiter.tryAcquire(priority.getShare())) {
+			throw new ConcurrencyLimitExceededException("The server is overloaded. Rejected " + endpoint,
+					HttpStatus.SERVICE_UNAVAILABLE, serverLimiter.getRetryAfterSeconds());
+		}
+
+		if (!endpointLimiter.tryAcquire(1.0)) {
+			serverLimiter.releaseWithoutSample();
+			throw new ConcurrencyLimitExceededException("Too many concurrent requests to " + endpoint,
+					HttpStatus.TOO_MANY_REQUESTS, endpointLimiter.getRetryAfterSeconds());
+		}
+
+		request.setAttribute(ACQUIRED_ATTRIBUTE, new Acquired(endpointLimiter, System.nanoTime()));
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		Acquired acquired = removeAcquired(request);
+
+		if (Objects.isNull(acquired)) {
+			return;
+		}
+
+		long rttNanos = System.nanoTime() - acquired.startNanos();
+		acquired.endpointLimiter().release(rttNanos);
+		serverLimiter.release(rttNanos);
+	}
+
+	/*
+	 * The time spent waiting by an asynchronous request says nothing about server
+	 * load, so its permits are released without a latency sample.
+	 */
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		Acquired acquired = removeAcquired(request);
+
+		if (Objects.nonNull(acquired)) {
+			acquired.endpointLimiter().releaseWithoutSample();
+			serverLimiter.releaseWithoutSample();
+		}
+	}
+
+	private Acquired removeAcquired(HttpServletRequest request) {
+		Acquired acquired = (Acquired) request.getAttribute(ACQUIRED_ATTRIBUTE);
+		request.removeAttribute(ACQUIRED_ATTRIBUTE);
+		return acquired;
+	}
+
+	private Level findPriority(HttpServletRequest request, HandlerMethod handlerMethod) {
+		RequestPriority requestPriority = handlerMethod.getMethodAnnotation(RequestPriority.class);
+
+		if (Objects.nonNull(requestPriority)) {
+			return requestPriority.value();
+		}
+
+		return HttpMethod.GET.matches(request.getMethod()) ? Level.HIGH : Level.NORMAL;
+	}
+
+	private GradientLimiter createLimiter(String endpoint) {
+		GradientLimiter limiter = new GradientLimiter(properties.getInitialLimit(), properties.getMinLimit(),
+				properties.getMaxLimit());
+
+		registerMetrics(endpoint, limiter);
+		log.info("Created concurrency limiter for {}", endpoint);
+
+		return limiter;
+	}
+
+	private void registerMetrics(String endpoint, GradientLimiter limiter) {
+		Gauge.builder("petstore.concurrency.limit", limiter, GradientLimiter::getLimit).tag("endpoint", endpoint)
+				.description("Current adaptive concurrency limit").register(meterRegistry);
+
+		Gauge.builder("petstore.concurrency.inflight", limiter, GradientLimiter::getInFlight)
+				.tag("endpoint", endpoint).description("Requests currently admitted").register(meterRegistry);
+
+		FunctionCounter.builder("petstore.concurrency.rejected", limiter, GradientLimiter::getRejected)
+				.tag("endpoint", endpoint).description("Requests rejected by the limiter").register(meterRegistry);
+	}
+
+	private record Acquired(GradientLimiter endpointLimiter, long startNanos) {
+	}
+}
@@ -0,0 +1,21 @@
+package pet.store.controller.limit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/*
+ * Settings for the adaptive concurrency limiter, read from the
+ * pet-store.concurrency-limit section of application.yaml. The endpoint limits
+ * apply to each controller method; the server limits apply to all of them
+ * together.
+ */
+@Data
+@ConfigurationProperties("pet-store.concurrency-limit")
+public class ConcurrencyLimitProperties {
+	private int initialLimit = 20;
+	private int minLimit = 2;
+	private int maxLimit = 200;
+	private int serverInitialLimit = 50;
+	private int serverMaxLimit = 400;
+}
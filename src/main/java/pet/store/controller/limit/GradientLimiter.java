@@ -0,0 +1,110 @@
+package pet.store.controller.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * An adaptive concurrency limit based on the gradient algorithm. Each completed
+ * request reports its latency. The latency is compared with a long term
+ * average: while requests are as fast as usual the limit grows, and when they
+ * slow down (because the database or connection pool is saturated) the limit
+ * shrinks in proportion to the slowdown.
+ */
+public class GradientLimiter {
+
+	private static final double TOLERANCE = 1.5;
+	private static final double SMOOTHING = 0.2;
+	private static final int LONG_WINDOW = 100;
+
+	private final int minLimit;
+	private final int maxLimit;
+
+	private double estimatedLimit;
+	private double longRttNanos;
+	private int inFlight;
+	private long rejected;
+
+	public GradientLimiter(int initialLimit, int minLimit, int maxLimit) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+	}
+
+	/*
+	 * Admits a request if fewer than share * limit requests are in flight. Every
+	 * successful call must be followed by a call to release() or
+	 * releaseWithoutSample().
+	 */
+	public synchronized boolean tryAcquire(double share) {
+		int allowed = Math.max(1, (int) (estimatedLimit * share));
+
+		if (inFlight >= allowed) {
+			rejected++;
+			return false;
+		}
+
+		inFlight++;
+		return true;
+	}
+
+	public synchronized void release(long rttNanos) {
+		int inFlightAtSample = inFlight;
+		inFlight--;
+
+		if (rttNanos <= 0) {
+			return;
+		}
+
+		double shortRtt = rttNanos;
+
+		if (longRttNanos == 0) {
+			longRttNanos = shortRtt;
+		} else {
+			longRttNanos += (shortRtt - longRttNanos) / LONG_WINDOW;
+		}
+
+		// Let the baseline recover quickly once a latency spike is over.
+		if (longRttNanos / shortRtt > 2) {
+			longRttNanos *= 0.95;
+		}
+
+		// Don't grow the limit when the server isn't using most of it.
+		if (inFlightAtSample < estimatedLimit / 2) {
+			return;
+		}
+
+		double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRtt));
+		double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+
+		newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+		estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+	}
+
+	/*
+	 * Releases a request without using its latency, for example when it was
+	 * admitted here but rejected by another limiter.
+	 */
+	public synchronized void releaseWithoutSample() {
+		inFlight--;
+	}
+
+	public synchronized double getLimit() {
+		return estimatedLimit;
+	}
+
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	/*
+	 * The number of seconds a rejected client should wait before trying again,
+	 * based on the usual request latency. Never less than one second.
+	 */
+	public synchronized long getRetryAfterSeconds() {
+		long seconds = (long) Math.ceil(longRttNanos / TimeUnit.SECONDS.toNanos(1));
+		return Math.max(1, seconds);
+	}
+}
@@ -0,0 +1,36 @@
+package pet.store.controller.limit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * Sets the load shedding priority of a controller method. When the server is
+ * under load, lower priority requests are rejected first. Methods without this
+ * annotation get HIGH priority for GET requests and NORMAL priority otherwise.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestPriority {
+
+	Level value();
+
+	/*
+	 * The share is the fraction of the server wide concurrency limit that requests
+	 * of this priority are allowed to use.
+	 */
+	enum Level {
+		HIGH(1.0), NORMAL(0.8), LOW(0.5);
+
+		private final double share;
+
+		Level(double share) {
+			this.share = share;
+		}
+
+		public double getShare() {
+			return share;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package pet.store.controller.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * A compact record of one committed change. The cursor increases with every
+ * change; pass it back as the since parameter to resume the feed after it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+	private long cursor;
+	private EntityType entityType;
+	private Action action;
+	private Long petStoreId;
+	private Long entityId;
+	private Instant changedAt;
+
+	public enum EntityType {
+		PET_STORE, EMPLOYEE, CUSTOMER
+	}
+
+	public enum Action {
+		SAVED, DELETED
+	}
+}
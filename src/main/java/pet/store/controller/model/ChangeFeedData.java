@@ -0,0 +1,20 @@
+package pet.store.controller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * One response from the change feed. Pass cursor as the since parameter of the
+ * next request. If reset is true, changes after the requested cursor were
+ * dropped from the change log and the client must reload the pet stores.
+ */
+@Data
+@NoArgsConstructor
+public class ChangeFeedData {
+	private List<ChangeEvent> changes = new ArrayList<>();
+	private long cursor;
+	private boolean reset;
+}
@@ -0,0 +1,20 @@
+package pet.store.controller.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * A single page of a keyset paginated listing. To fetch the next page, pass
+ * nextAfterId back to the endpoint as the afterId request parameter. When
+ * nextAfterId is null there are no more rows.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+	private List<T> items;
+	private Long nextAfterId;
+}
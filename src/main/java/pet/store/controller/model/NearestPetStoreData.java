@@ -0,0 +1,18 @@
+package pet.store.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * A pet store returned by a nearest store lookup, with its distance from the
+ * requested location in kilometers. The pet store's customers and employees
+ * are not included.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearestPetStoreData {
+	private PetStoreData petStore;
+	private double distanceKm;
+}
@@ -0,0 +1,22 @@
+package pet.store.controller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * The result of a nearest store lookup. The pet stores are ordered nearest
+ * first. A pet store with neither coordinates nor a zip code in the zip code
+ * table has no known location, so it can't be ranked. Those pet stores are
+ * counted in unlocatedPetStoreCount and the first of them, by ID, are listed in
+ * unlocatedPetStoreIds rather than being silently left out.
+ */
+@Data
+@NoArgsConstructor
+public class NearestPetStoreResultData {
+	private List<NearestPetStoreData> petStores = new ArrayList<>();
+	private int unlocatedPetStoreCount;
+	private List<Long> unlocatedPetStoreIds = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package pet.store.controller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * The result of a bulk PATCH. IDs are listed in the order they were sent;
+ * missingIds holds the IDs that don't exist (or don't belong to the pet store)
+ * and were not changed.
+ */
+@Data
+@NoArgsConstructor
+public class PatchResultData {
+	private List<Long> updatedIds = new ArrayList<>();
+	private List<Long> missingIds = new ArrayList<>();
+}
@@ -25,6 +25,8 @@ public class PetStoreData {
 	private String petStoreState;
 	private String petStoreZip;
 	private String petStorePhone;
+	private Double petStoreLatitude;
+	private Double petStoreLongitude;
 	private Set<PetStoreCustomer> customers = new HashSet<>();
 	private Set<PetStoreEmployee> employees = new HashSet<>();
 	
@@ -35,6 +37,14 @@ public class PetStoreData {
 	 * Note that customer and employee are sets, so use loops.
 	 */
 	public PetStoreData(PetStore petStore) {
+		this(petStore, true, true);
+	}
+
+	/*
+	 * Copies the pet store fields and only the requested collections. Collections
+	 * that aren't requested are left empty and are never loaded from the database.
+	 */
+	public PetStoreData(PetStore petStore, boolean withCustomers, boolean withEmployees) {
 		petStoreId = petStore.getPetStoreId();
 		petStoreName = petStore.getPetStoreName();
 		petStoreAddress = petStore.getPetStoreAddress();
@@ -42,13 +52,42 @@ public class PetStoreData {
 		petStoreState = petStore.getPetStoreState();
 		petStoreZip = petStore.getPetStoreZip();
 		petStorePhone = petStore.getPetStorePhone();
+		petStoreLatitude = petStore.getPetStoreLatitude();
+		petStoreLongitude = petStore.getPetStoreLongitude();
 		
-		for(Customer customer : petStore.getCustomers()) {
-			customers.add(new PetStoreCustomer(customer));
+		if (withCustomers) {
+			for (Customer customer : petStore.getCustomers()) {
+				customers.add(new PetStoreCustomer(customer));
+			}
 		}
-		
-		for (Employee employee : petStore.getEmployees()) {
-			employees.add(new PetStoreEmployee(employee));
+
+		if (withEmployees) {
+			for (Employee employee : petStore.getEmployees()) {
+				employees.add(new PetStoreEmployee(employee));
+			}
+		}
+	}
+
+	/*
+	 * Copies another PetStoreData object, keeping only the requested collections.
+	 */
+	public PetStoreData(PetStoreData petStoreData, boolean withCustomers, boolean withEmployees) {
+		petStoreId = petStoreData.getPetStoreId();
+		petStoreName = petStoreData.getPetStoreName();
+		petStoreAddress = petStoreData.getPetStoreAddress();
+		petStoreCity = petStoreData.getPetStoreCity();
+		petStoreState = petStoreData.getPetStoreState();
+		petStoreZip = petStoreData.getPetStoreZip();
+		petStorePhone = petStoreData.getPetStorePhone();
+		petStoreLatitude = petStoreData.getPetStoreLatitude();
+		petStoreLongitude = petStoreData.getPetStoreLongitude();
+
+		if (withCustomers) {
+			customers.addAll(petStoreData.getCustomers());
+		}
+
+		if (withEmployees) {
+			employees.addAll(petStoreData.getEmployees());
 		}
 	}
 }
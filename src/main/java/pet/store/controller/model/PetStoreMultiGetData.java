@@ -0,0 +1,19 @@
+package pet.store.controller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * The result of fetching many pet stores at once. The pet stores are returned
+ * in the order the IDs were requested. IDs that don't match a pet store are
+ * listed in missingIds instead of failing the whole request.
+ */
+@Data
+@NoArgsConstructor
+public class PetStoreMultiGetData {
+	private List<PetStoreData> petStores = new ArrayList<>();
+	private List<Long> missingIds = new ArrayList<>();
+}
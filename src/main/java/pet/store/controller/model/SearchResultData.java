@@ -0,0 +1,26 @@
+package pet.store.controller.model;
+
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pet.store.controller.model.ChangeEvent.EntityType;
+
+/*
+ * One customer or employee matching a search. For customers the detail is the
+ * email address; for employees it is the job title. Results are ordered by
+ * score, highest first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultData {
+	private EntityType entityType;
+	private Long id;
+	private String firstName;
+	private String lastName;
+	private String detail;
+	private Set<Long> petStoreIds;
+	private int score;
+}
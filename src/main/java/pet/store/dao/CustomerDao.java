@@ -1,6 +1,11 @@
 package pet.store.dao;
 
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import pet.store.entity.Customer;
 
@@ -10,4 +15,24 @@ import pet.store.entity.Customer;
  */
 public interface CustomerDao extends JpaRepository<Customer, Long> {
 
+	/*
+	 * Returns one page of customers for a pet store using keyset pagination. The
+	 * customers are reached through the pet_store_customer join table. Its
+	 * (pet_store_id, customer_id) index serves both the store filter and the
+	 * ordering on customer ID, so a page reads only the rows it returns plus the
+	 * ones skipped by the last name filter, each joined to customer by primary key.
+	 * The last name prefix filter is ignored when null; it must already have its
+	 * LIKE wildcards escaped with a backslash.
+	 */
+	@Query("SELECT c FROM PetStore p JOIN p.customers c WHERE p.petStoreId = :petStoreId AND c.customerId > :afterId "
+			+ "AND (:lastNamePrefix IS NULL OR c.customerLastName LIKE CONCAT(:lastNamePrefix, '%') ESCAPE '\\') "
+			+ "ORDER BY c.customerId")
+	List<Customer> findPageByPetStoreId(@Param("petStoreId") Long petStoreId, @Param("afterId") Long afterId,
+			@Param("lastNamePrefix") String lastNamePrefix, Limit limit);
+
+	/*
+	 * Reads the whole table in ID order, one page at a time, for rebuilding the
+	 * search index.
+	 */
+	List<Customer> findByCustomerIdGreaterThanOrderByCustomerId(Long afterId, Limit limit);
 }
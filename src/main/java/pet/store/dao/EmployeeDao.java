@@ -1,6 +1,11 @@
 package pet.store.dao;
 
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import pet.store.entity.Employee;
 
@@ -10,4 +15,24 @@ import pet.store.entity.Employee;
  */
 public interface EmployeeDao extends JpaRepository<Employee, Long> {
 
+	/*
+	 * Returns one page of employees for a pet store using keyset pagination: only
+	 * rows with an ID greater than afterId are returned, in ID order. The job title
+	 * and last name prefix filters are optional and are ignored when null. The last name prefix
+	 * must already have its LIKE wildcards escaped with a backslash. This
+	 * query is served by the (pet_store_id, employee_id) index on the employee
+	 * table.
+	 */
+	@Query("SELECT e FROM Employee e WHERE e.petStore.petStoreId = :petStoreId AND e.employeeId > :afterId "
+			+ "AND (:jobTitle IS NULL OR e.employeeJobTitle = :jobTitle) "
+			+ "AND (:lastNamePrefix IS NULL OR e.employeeLastName LIKE CONCAT(:lastNamePrefix, '%') ESCAPE '\\') "
+			+ "ORDER BY e.employeeId")
+	List<Employee> findPageByPetStoreId(@Param("petStoreId") Long petStoreId, @Param("afterId") Long afterId,
+			@Param("jobTitle") String jobTitle, @Param("lastNamePrefix") String lastNamePrefix, Limit limit);
+
+	/*
+	 * Reads the whole table in ID order, one page at a time, for rebuilding the
+	 * search index.
+	 */
+	List<Employee> findByEmployeeIdGreaterThanOrderByEmployeeId(Long afterId, Limit limit);
 }
@@ -0,0 +1,229 @@
+package pet.store.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.metamodel.Attribute.PersistentAttributeType;
+import jakarta.persistence.metamodel.SingularAttribute;
+
+/*
+ * Applies partial updates straight to the database. Only the columns named in
+ * a patch are written, nothing is read first, and patches that change the same
+ * set of columns are sent to the database as one JDBC batch. This must be
+ * called inside a transaction.
+ */
+@Component
+public class EntityPatchDao {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/*
+	 * An extra condition every patched row must meet, such as belonging to a given
+	 * pet store. The SQL must contain exactly one ? parameter.
+	 */
+	public record Scope(String sql, Long value) {
+	}
+
+	/*
+	 * Applies each patch (a map of entity attribute names to new values) to the
+	 * row with the given ID and returns the IDs of the rows that were updated. An
+	 * ID that doesn't exist, or is outside the scope, is left out of the result.
+	 * An empty patch changes nothing, but its ID is still returned if the row
+	 * exists. Unknown attributes and values of the wrong type are rejected with an
+	 * IllegalStateException before anything is written.
+	 */
+	public Set<Long> patch(Class<?> entityType, Map<Long, Map<String, Object>> patches, Scope scope) {
+		AbstractEntityPersister persister = (AbstractEntityPersister) entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactoryImplementor.class).getMappingMetamodel().getEntityDescriptor(entityType);
+		Map<String, SingularAttribute<?, ?>> attributes = findPatchableAttributes(entityType);
+
+		// Group the rows by the columns they change so each group is one statement.
+		Map<Set<String>, Map<Long, Map<String, Object>>> groups = new LinkedHashMap<>();
+
+		// Rows whose existence the UPDATE counts can't tell us, checked with a SELECT.
+		List<Long> uncountedIds = new ArrayList<>();
+
+		for (Entry<Long, Map<String, Object>> patch : patches.entrySet()) {
+			Map<String, Object> values = new TreeMap<>();
+
+			for (Entry<String, Object> change : patch.getValue().entrySet()) {
+				SingularAttribute<?, ?> attribute = attributes.get(change.getKey());
+
+				if (Objects.isNull(attribute)) {
+					throw new IllegalStateException(
+							"Field " + change.getKey() + " can't be patched on " + entityType.getSimpleName());
+				}
+
+				values.put(change.getKey(), convert(change.getKey(), change.getValue(), attribute.getJavaType()));
+			}
+
+			if (values.isEmpty()) {
+				uncountedIds.add(patch.getKey());
+			} else {
+				groups.computeIfAbsent(values.keySet(), key -> new LinkedHashMap<>()).put(patch.getKey(), values);
+			}
+		}
+
+		Set<Long> updatedIds = new HashSet<>();
+
+		if (patches.isEmpty()) {
+			return updatedIds;
+		}
+
+		entityManager.flush();
+
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			for (Entry<Set<String>, Map<Long, Map<String, Object>>> group : groups.entrySet()) {
+				List<String> attributeNames = new ArrayList<>(group.getKey());
+				String sql = buildUpdateSql(persister, attributeNames, scope);
+
+				try (PreparedStatement statement = connection.prepareStatement(sql)) {
+					List<Long> ids = new ArrayList<>(group.getValue().keySet());
+
+					for (Long id : ids) {
+						Map<String, Object> values = group.getValue().get(id);
+						int index = 1;
+
+						for (String attributeName : attributeNames) {
+							statement.setObject(index++, values.get(attributeName));
+						}
+
+						statement.setLong(index++, id);
+
+						if (Objects.nonNull(scope)) {
+							statement.setLong(index, scope.value());
+						}
+
+						statement.addBatch();
+					}
+
+					int[] counts = statement.executeBatch();
+
+					/*
+					 * With rewriteBatchedStatements, MySQL reports SUCCESS_NO_INFO instead of a
+					 * count per row, which says nothing about whether the row exists.
+					 */
+					for (int i = 0; i < counts.length; i++) {
+						if (counts[i] > 0) {
+							updatedIds.add(ids.get(i));
+						} else if (counts[i] == Statement.SUCCESS_NO_INFO) {
+							uncountedIds.add(ids.get(i));
+						}
+					}
+				}
+			}
+
+			if (!uncountedIds.isEmpty()) {
+				updatedIds.addAll(findExistingIds(connection, persister, uncountedIds, scope));
+			}
+		});
+
+		// Managed copies of the patched rows are now stale.
+		entityManager.clear();
+
+		return updatedIds;
+	}
+
+	/*
+	 * Returns the IDs that exist and are inside the scope, read in the same
+	 * transaction as the updates.
+	 */
+	private Set<Long> findExistingIds(Connection connection, AbstractEntityPersister persister, List<Long> ids,
+			Scope scope) throws SQLException {
+		String idColumn = persister.getIdentifierColumnNames()[0];
+		StringBuilder sql = new StringBuilder("SELECT ").append(idColumn).append(" FROM ")
+				.append(persister.getIdentifierTableName()).append(" WHERE ").append(idColumn).append(" IN (")
+				.append(String.join(", ", Collections.nCopies(ids.size(), "?"))).append(")");
+
+		if (Objects.nonNull(scope)) {
+			sql.append(" AND ").append(scope.sql());
+		}
+
+		Set<Long> existingIds = new HashSet<>();
+
+		try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+			int index = 1;
+
+			for (Long id : ids) {
+				statement.setLong(index++, id);
+			}
+
+			if (Objects.nonNull(scope)) {
+				statement.setLong(index, scope.value());
+			}
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					existingIds.add(resultSet.getLong(1));
+				}
+			}
+		}
+
+		return existingIds;
+	}
+
+	private Map<String, SingularAttribute<?, ?>> findPatchableAttributes(Class<?> entityType) {
+		Map<String, SingularAttribute<?, ?>> attributes = new LinkedHashMap<>();
+
+		for (SingularAttribute<?, ?> attribute : entityManager.getMetamodel().entity(entityType)
+				.getSingularAttributes()) {
+			if (!attribute.isId() && attribute.getPersistentAttributeType() == PersistentAttributeType.BASIC) {
+				attributes.put(attribute.getName(), attribute);
+			}
+		}
+
+		return attributes;
+	}
+
+	private Object convert(String attributeName, Object value, Class<?> javaType) {
+		try {
+			return objectMapper.convertValue(value, javaType);
+		} catch (IllegalArgumentException ex) {
+			throw new IllegalStateException("Invalid value for field " + attributeName + ": " + value);
+		}
+	}
+
+	private String buildUpdateSql(AbstractEntityPersister persister, List<String> attributeNames, Scope scope) {
+		StringBuilder sql = new StringBuilder("UPDATE ").append(persister.getIdentifierTableName()).append(" SET ");
+
+		for (int i = 0; i < attributeNames.size(); i++) {
+			sql.append(i == 0 ? "" : ", ").append(persister.getPropertyColumnNames(attributeNames.get(i))[0])
+					.append(" = ?");
+		}
+
+		sql.append(" WHERE ").append(persister.getIdentifierColumnNames()[0]).append(" = ?");
+
+		if (Objects.nonNull(scope)) {
+			sql.append(" AND ").append(scope.sql());
+		}
+
+		return sql.toString();
+	}
+}
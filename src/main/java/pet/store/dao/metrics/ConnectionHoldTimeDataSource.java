@@ -0,0 +1,97 @@
+package pet.store.dao.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * Times how long each JDBC connection is held, from the moment it is taken
+ * from the pool until it is closed and handed back, and records it under the
+ * endpoint that took it. The pool needs about as many connections as the
+ * request rate times the mean hold time, so this shows which endpoints the
+ * pool should be sized for.
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource {
+
+	public static final String METRIC_NAME = "petstore.jdbc.connection.hold";
+
+	private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	public ConnectionHoldTimeDataSource(DataSource targetDataSource,
+			ObjectProvider<MeterRegistry> meterRegistryProvider) {
+		super(targetDataSource);
+		this.meterRegistryProvider = meterRegistryProvider;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return timed(obtainTargetDataSource().getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return timed(obtainTargetDataSource().getConnection(username, password));
+	}
+
+	/*
+	 * The endpoint is read when the connection is taken, because with
+	 * open-in-view on the connection is only closed after the request has
+	 * finished.
+	 */
+	private Connection timed(Connection connection) {
+		String endpoint = EndpointContext.getEndpoint();
+		long start = System.nanoTime();
+		boolean[] closed = { false };
+
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] { ConnectionProxy.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "getTargetConnection":
+						return connection;
+					case "close":
+						if (!closed[0]) {
+							closed[0] = true;
+							record(endpoint, System.nanoTime() - start);
+						}
+						break;
+					default:
+						break;
+					}
+
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException ex) {
+						throw ex.getTargetException();
+					}
+				});
+	}
+
+	private void record(String endpoint, long nanos) {
+		MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+
+		if (Objects.nonNull(meterRegistry)) {
+			timers.computeIfAbsent(endpoint, key -> Timer.builder(METRIC_NAME).tag("endpoint", key)
+					.description("Time a JDBC connection was held before being returned to the pool")
+					.register(meterRegistry)).record(nanos, TimeUnit.NANOSECONDS);
+		}
+	}
+}
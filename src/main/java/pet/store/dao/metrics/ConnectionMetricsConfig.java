@@ -0,0 +1,66 @@
+package pet.store.dao.metrics;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Wires up the connection hold time metric: the application's DataSource is
+ * wrapped so every connection is timed, an interceptor records the endpoint of
+ * each request, and the task executor carries the endpoint over to the threads
+ * that run scatter-gather work on the shards.
+ */
+@Configuration
+public class ConnectionMetricsConfig implements WebMvcConfigurer {
+
+	/*
+	 * Static, so that it is created before the DataSource it wraps. Only the
+	 * DataSource beans are wrapped; with sharding that is the routing DataSource,
+	 * so each connection is timed once whichever shard it comes from.
+	 */
+	@Bean
+	public static BeanPostProcessor connectionHoldTimeDataSourcePostProcessor(
+			ObjectProvider<MeterRegistry> meterRegistryProvider) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionHoldTimeDataSource)) {
+					return new ConnectionHoldTimeDataSource(dataSource, meterRegistryProvider);
+				}
+
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	public TaskDecorator endpointContextTaskDecorator() {
+		return runnable -> {
+			String endpoint = EndpointContext.get();
+
+			return () -> {
+				String previous = EndpointContext.get();
+				EndpointContext.set(endpoint);
+
+				try {
+					runnable.run();
+				} finally {
+					EndpointContext.set(previous);
+				}
+			};
+		};
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new EndpointContextInterceptor());
+	}
+}
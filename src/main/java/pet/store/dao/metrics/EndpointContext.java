@@ -0,0 +1,39 @@
+package pet.store.dao.metrics;
+
+import java.util.Objects;
+
+/*
+ * Holds the endpoint that database work on the current thread is done for,
+ * such as "GET /pet_store/{petStoreId}". Connections are tagged with it when
+ * they are taken from the pool.
+ */
+public final class EndpointContext {
+
+	public static final String NONE = "none";
+
+	private static final ThreadLocal<String> CURRENT_ENDPOINT = new ThreadLocal<>();
+
+	private EndpointContext() {
+	}
+
+	public static String getEndpoint() {
+		String endpoint = CURRENT_ENDPOINT.get();
+		return Objects.isNull(endpoint) ? NONE : endpoint;
+	}
+
+	static String get() {
+		return CURRENT_ENDPOINT.get();
+	}
+
+	static void set(String endpoint) {
+		if (Objects.isNull(endpoint)) {
+			CURRENT_ENDPOINT.remove();
+		} else {
+			CURRENT_ENDPOINT.set(endpoint);
+		}
+	}
+
+	public static void clear() {
+		CURRENT_ENDPOINT.remove();
+	}
+}
@@ -0,0 +1,39 @@
+package pet.store.dao.metrics;
+
+import java.util.Objects;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Records which endpoint the current request is for, as the HTTP method and
+ * the matched URI pattern, so that connections can be tagged with it.
+ */
+public class EndpointContextInterceptor implements AsyncHandlerInterceptor {
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+		if (Objects.nonNull(pattern)) {
+			EndpointContext.set(request.getMethod() + " " + pattern);
+		}
+
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		EndpointContext.clear();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		EndpointContext.clear();
+	}
+}
@@ -0,0 +1,29 @@
+package pet.store.dao.shard;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import lombok.Getter;
+
+/*
+ * Keeps the Hibernate mapping metadata so the schema of every shard, not just
+ * the first, can be created or updated at startup.
+ */
+public class MetadataCapturingIntegrator implements Integrator {
+
+	@Getter
+	private Metadata metadata;
+
+	@Override
+	public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+			SessionFactoryImplementor sessionFactory) {
+		this.metadata = metadata;
+	}
+
+	@Override
+	public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+	}
+}
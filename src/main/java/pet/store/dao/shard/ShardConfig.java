@@ -0,0 +1,79 @@
+package pet.store.dao.shard;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import pet.store.dao.shard.ShardProperties.Shard;
+
+/*
+ * Wires up sharding when pet-store.sharding.enabled is true: one connection
+ * pool per shard behind a routing DataSource. The service selects the shard
+ * for each unit of work through the ShardRouter.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardConfig {
+
+	private final ShardProperties shardProperties;
+
+	public ShardConfig(ShardProperties shardProperties) {
+		this.shardProperties = shardProperties;
+	}
+
+	@Bean
+	@Primary
+	@ConditionalOnProperty("pet-store.sharding.enabled")
+	public DataSource shardRoutingDataSource() {
+		List<Shard> shards = shardProperties.getShards();
+
+		if (shards.isEmpty()) {
+			throw new IllegalStateException("Sharding is enabled but no shards are configured.");
+		}
+
+		Map<Object, Object> targetDataSources = new HashMap<>();
+
+		for (int shard = 0; shard < shards.size(); shard++) {
+			HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+					.url(shards.get(shard).getUrl()).username(shards.get(shard).getUsername())
+					.password(shards.get(shard).getPassword()).build();
+
+			dataSource.setPoolName("shard-" + shard);
+			targetDataSources.put(shard, dataSource);
+		}
+
+		ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+		routingDataSource.setTargetDataSources(targetDataSources);
+		routingDataSource.setDefaultTargetDataSource(targetDataSources.get(0));
+
+		return routingDataSource;
+	}
+
+	@Bean
+	@ConditionalOnProperty("pet-store.sharding.enabled")
+	public MetadataCapturingIntegrator metadataCapturingIntegrator() {
+		return new MetadataCapturingIntegrator();
+	}
+
+	@Bean
+	@ConditionalOnProperty("pet-store.sharding.enabled")
+	public HibernatePropertiesCustomizer shardHibernatePropertiesCustomizer(
+			MetadataCapturingIntegrator metadataCapturingIntegrator) {
+		return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+				(IntegratorProvider) () -> List.of(metadataCapturingIntegrator));
+	}
+}
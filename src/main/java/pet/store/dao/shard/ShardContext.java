@@ -0,0 +1,39 @@
+package pet.store.dao.shard;
+
+import java.util.Objects;
+
+/*
+ * Holds the shard that database work on the current thread is routed to. The
+ * shard must be chosen before a transaction starts, because the connection is
+ * taken from the shard's pool when the transaction begins. It is set only by
+ * ShardRouter.callOnShard. Work outside of it, such as Hibernate's schema
+ * update at startup, uses shard 0.
+ */
+public final class ShardContext {
+
+	private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+	private ShardContext() {
+	}
+
+	public static int getShard() {
+		Integer shard = CURRENT_SHARD.get();
+		return Objects.isNull(shard) ? 0 : shard;
+	}
+
+	static Integer get() {
+		return CURRENT_SHARD.get();
+	}
+
+	static void set(Integer shard) {
+		if (Objects.isNull(shard)) {
+			CURRENT_SHARD.remove();
+		} else {
+			CURRENT_SHARD.set(shard);
+		}
+	}
+
+	public static void clear() {
+		CURRENT_SHARD.remove();
+	}
+}
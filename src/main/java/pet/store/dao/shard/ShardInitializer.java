@@ -0,0 +1,154 @@
+package pet.store.dao.shard;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Prepares every shard at startup. Hibernate only manages the schema of the
+ * default shard, so the same ddl-auto action is applied to the others here.
+ * Then each shard's identity columns are moved to the start of the shard's ID
+ * range, which makes the database itself the shard-aware ID allocator: any ID
+ * it generates can be routed back to the shard that generated it. With
+ * sharding turned off the one database is shard 0, and only its customer ID
+ * counter ever needs moving.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class ShardInitializer {
+
+	/*
+	 * Each identity column, and the table holding the IDs it has handed out.
+	 * Customer IDs come from customer_id_allocation, because the customer table
+	 * also holds copies of customers from other shards.
+	 */
+	private static final String[][] IDENTITY_COLUMNS = { { "pet_store", "pet_store_id", "pet_store" },
+			{ "employee", "employee_id", "employee" }, { "customer_id_allocation", "customer_id", "customer" } };
+
+	private final DataSource dataSource;
+	private final ShardRouter shardRouter;
+	private final ObjectProvider<MetadataCapturingIntegrator> metadataCapturingIntegrator;
+	private final String ddlAuto;
+
+	/*
+	 * Depending on the entityManagerFactory bean makes Hibernate finish with the
+	 * default shard before the other shards are touched.
+	 */
+	public ShardInitializer(DataSource dataSource, ShardRouter shardRouter,
+			ObjectProvider<MetadataCapturingIntegrator> metadataCapturingIntegrator,
+			@Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+		this.dataSource = dataSource;
+		this.shardRouter = shardRouter;
+		this.metadataCapturingIntegrator = metadataCapturingIntegrator;
+		this.ddlAuto = ddlAuto;
+	}
+
+	@PostConstruct
+	public void initializeShards() {
+		for (int shard : shardRouter.getShards()) {
+			int currentShard = shard;
+
+			shardRouter.callOnShard(shard, () -> {
+				if (currentShard > 0) {
+					updateSchema();
+				}
+
+				allocateIdRange(currentShard);
+				return null;
+			});
+		}
+	}
+
+	private void updateSchema() {
+		if ("none".equals(ddlAuto)) {
+			return;
+		}
+
+		Map<String, Object> settings = new HashMap<>();
+		settings.put(AvailableSettings.HBM2DDL_AUTO, "create-drop".equals(ddlAuto) ? "create" : ddlAuto);
+
+		StandardServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder()
+				.applySetting(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource).build();
+
+		try {
+			SchemaManagementToolCoordinator.process(metadataCapturingIntegrator.getObject().getMetadata(),
+					serviceRegistry, settings, action -> {
+					});
+		} finally {
+			StandardServiceRegistryBuilder.destroy(serviceRegistry);
+		}
+	}
+
+	/*
+	 * Moves the identity counters of a shard to the start of its ID range, or
+	 * past the shard's own IDs already in use. A counter that is already there is
+	 * left alone, so restarting the application never hands out an ID twice.
+	 */
+	private void allocateIdRange(int shard) {
+		long rangeStart = shardRouter.getIdRangeStart(shard);
+		long rangeEnd = shardRouter.getIdRangeStart(shard + 1) - 1;
+
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			boolean h2 = connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("H2");
+
+			if (!h2) {
+				// Make MySQL report the live AUTO_INCREMENT value instead of a cached one.
+				statement.execute("SET SESSION information_schema_stats_expiry = 0");
+			}
+
+			for (String[] identityColumn : IDENTITY_COLUMNS) {
+				String table = identityColumn[0];
+				String column = identityColumn[1];
+				long maxId = queryLong(statement, "SELECT MAX(" + column + ") FROM " + table);
+
+				if (maxId > rangeEnd || (maxId > 0 && maxId < rangeStart)) {
+					throw new IllegalStateException("Table " + table + " on shard " + shard
+							+ " has IDs outside of the shard's range " + rangeStart + "-" + rangeEnd);
+				}
+
+				long firstFreeId = Math.max(rangeStart, queryLong(statement, "SELECT MAX(" + column + ") FROM "
+						+ identityColumn[2] + " WHERE " + column + " BETWEEN " + rangeStart + " AND " + rangeEnd) + 1);
+
+				long nextId = queryLong(statement, h2
+						? "SELECT IDENTITY_BASE FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = UPPER('"
+								+ table + "') AND COLUMN_NAME = UPPER('" + column + "')"
+						: "SELECT AUTO_INCREMENT FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = '"
+								+ table + "'");
+
+				if (nextId < firstFreeId) {
+					statement.execute(h2
+							? "ALTER TABLE " + table + " ALTER COLUMN " + column + " RESTART WITH " + firstFreeId
+							: "ALTER TABLE " + table + " AUTO_INCREMENT = " + firstFreeId);
+				}
+			}
+		} catch (SQLException ex) {
+			throw new IllegalStateException("Unable to allocate the ID range of shard " + shard, ex);
+		}
+
+		log.info("Shard {} allocates IDs from {} to {}", shard, rangeStart, rangeEnd);
+	}
+
+	private long queryLong(Statement statement, String sql) throws SQLException {
+		try (ResultSet resultSet = statement.executeQuery(sql)) {
+			return resultSet.next() ? resultSet.getLong(1) : 0;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package pet.store.dao.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/*
+ * Settings for splitting the pet stores across several databases, read from
+ * the pet-store.sharding section of application.yaml. When sharding is turned
+ * off the normal spring.datasource settings are used.
+ *
+ * Each shard owns a range of idRangeSize IDs: shard 0 uses IDs 1 to
+ * idRangeSize, shard 1 the next idRangeSize IDs, and so on. Shards may be
+ * added to the end of the list but never removed or reordered.
+ */
+@Data
+@ConfigurationProperties("pet-store.sharding")
+public class ShardProperties {
+	private boolean enabled = false;
+	private long idRangeSize = 1L << 40;
+	private List<Shard> shards = new ArrayList<>();
+
+	@Data
+	public static class Shard {
+		private String url;
+		private String username;
+		private String password;
+	}
+}
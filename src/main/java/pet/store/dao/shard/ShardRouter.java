@@ -0,0 +1,137 @@
+package pet.store.dao.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+/*
+ * Decides which shard a pet store lives on and runs database work there. A pet
+ * store's employees and customer memberships live on the same shard as the
+ * pet store, so everything about one store can be read or written in a single
+ * transaction on one shard.
+ *
+ * A customer is created on the shard of the pet store it first joins, and is
+ * copied under the same ID to the shard of every other pet store it joins.
+ * Customer IDs come from the customer_id_allocation table rather than the
+ * customer table, so the copies never move an identity counter, and the
+ * CustomerReplicator keeps the copies in step after every customer write.
+ *
+ * When sharding is turned off there is exactly one shard and all work runs on
+ * the calling thread.
+ */
+@Component
+public class ShardRouter {
+
+	@Autowired
+	private ShardProperties shardProperties;
+
+	@Autowired
+	private TaskExecutor taskExecutor;
+
+	private final AtomicInteger nextShard = new AtomicInteger();
+
+	public int getShardCount() {
+		return shardProperties.isEnabled() ? shardProperties.getShards().size() : 1;
+	}
+
+	public List<Integer> getShards() {
+		return IntStream.range(0, getShardCount()).boxed().toList();
+	}
+
+	/*
+	 * The first ID handed out by a shard. Every shard's ID range is disjoint, so
+	 * the shard of any pet store, employee or customer follows from its ID.
+	 */
+	public long getIdRangeStart(int shard) {
+		return shard * shardProperties.getIdRangeSize() + 1;
+	}
+
+	public OptionalInt findShard(Long id) {
+		if (getShardCount() == 1) {
+			return OptionalInt.of(0);
+		}
+
+		if (Objects.isNull(id) || id < 1) {
+			return OptionalInt.empty();
+		}
+
+		long shard = (id - 1) / shardProperties.getIdRangeSize();
+		return shard < getShardCount() ? OptionalInt.of((int) shard) : OptionalInt.empty();
+	}
+
+	public int shardFor(Long petStoreId) {
+		return findShard(petStoreId)
+				.orElseThrow(() -> new NoSuchElementException("Pet store with ID=" + petStoreId + " does not exist."));
+	}
+
+	/*
+	 * New pet stores are spread across the shards round robin.
+	 */
+	public int nextShardForNewPetStore() {
+		return Math.floorMod(nextShard.getAndIncrement(), getShardCount());
+	}
+
+	/*
+	 * Runs the work on the calling thread with the given shard selected. No
+	 * transaction may be active when this is called.
+	 */
+	public <T> T callOnShard(int shard, Supplier<T> work) {
+		Integer previous = ShardContext.get();
+		ShardContext.set(shard);
+
+		try {
+			return work.get();
+		} finally {
+			ShardContext.set(previous);
+		}
+	}
+
+	/*
+	 * Runs the work once per shard and returns the results in shard order. With
+	 * more than one shard the work runs in parallel on the task executor, where
+	 * no request scoped EntityManager can pin it to the wrong shard.
+	 */
+	public <T> List<T> callOnShards(Collection<Integer> shards, IntFunction<T> work) {
+		if (getShardCount() == 1) {
+			List<T> results = new ArrayList<>();
+
+			for (int shard : shards) {
+				results.add(callOnShard(shard, () -> work.apply(shard)));
+			}
+
+			return results;
+		}
+
+		List<CompletableFuture<T>> futures = shards.stream()
+				.map(shard -> CompletableFuture.supplyAsync(() -> callOnShard(shard, () -> work.apply(shard)),
+						taskExecutor))
+				.toList();
+
+		try {
+			return futures.stream().map(CompletableFuture::join).toList();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+
+			throw ex;
+		}
+	}
+
+	public <T> List<T> callOnAllShards(IntFunction<T> work) {
+		return callOnShards(getShards(), work);
+	}
+}
@@ -0,0 +1,15 @@
+package pet.store.dao.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/*
+ * A DataSource that hands out connections from the pool of the shard in the
+ * ShardContext. The DAOs and Hibernate see a single DataSource.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return ShardContext.getShard();
+	}
+}
@@ -3,10 +3,10 @@ package pet.store.entity;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import lombok.Data;
@@ -15,11 +15,12 @@ import lombok.ToString;
 
 @Entity
 @Data
+@DynamicUpdate
 public class Customer {
 
 	// add @ID and @GeneratedValue annotations to primary key(s)
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@CustomerIdGenerator.Allocated
 	private Long customerId;
 
 	private String customerFirstName;
@@ -0,0 +1,23 @@
+package pet.store.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+/*
+ * One row for every customer ID a database has handed out. A customer row is
+ * copied, under its own ID, to the shard of every pet store it joins, so the
+ * customer table can't generate IDs itself: an explicit insert would move its
+ * counter into the ID range of another shard. This table only ever receives
+ * generated IDs, so its counter stays inside the shard's range.
+ */
+@Entity
+@Data
+public class CustomerIdAllocation {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long customerId;
+}
@@ -0,0 +1,71 @@
+package pet.store.entity;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumSet;
+import java.util.Objects;
+
+import org.hibernate.annotations.IdGeneratorType;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+/*
+ * Gives a new customer the next ID from the customer_id_allocation table of
+ * the database the session is connected to. The row is inserted on the
+ * session's own connection, inside its transaction. A customer that already
+ * has an ID keeps it, which is how a copy from another shard is saved.
+ */
+public class CustomerIdGenerator implements BeforeExecutionGenerator {
+
+	private static final String ALLOCATE_SQL = "INSERT INTO customer_id_allocation (customer_id) VALUES (DEFAULT)";
+
+	@IdGeneratorType(CustomerIdGenerator.class)
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.FIELD)
+	public @interface Allocated {
+	}
+
+	@Override
+	public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+			EventType eventType) {
+		// Hibernate doesn't pass the assigned ID of a merged entity, so read it from the entity.
+		Long assignedId = owner instanceof Customer customer ? customer.getCustomerId() : null;
+
+		if (Objects.nonNull(assignedId)) {
+			return assignedId;
+		}
+
+		try (PreparedStatement statement = session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection()
+				.prepareStatement(ALLOCATE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+			statement.executeUpdate();
+
+			try (ResultSet keys = statement.getGeneratedKeys()) {
+				if (!keys.next()) {
+					throw new IllegalStateException("No customer ID was generated.");
+				}
+
+				return keys.getLong(1);
+			}
+		} catch (SQLException ex) {
+			throw new IllegalStateException("Unable to allocate a customer ID", ex);
+		}
+	}
+
+	@Override
+	public EnumSet<EventType> getEventTypes() {
+		return EventTypeSets.INSERT_ONLY;
+	}
+
+	@Override
+	public boolean allowAssignedIdentifiers() {
+		return true;
+	}
+}
@@ -1,18 +1,26 @@
 package pet.store.entity;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 @Entity
 @Data
+@DynamicUpdate
+@Table(indexes = {
+		@Index(name = "idx_employee_pet_store", columnList = "pet_store_id, employee_id"),
+		@Index(name = "idx_employee_pet_store_job_title", columnList = "pet_store_id, employee_job_title, employee_id") })
 public class Employee {
 
 	// add @ID and @GeneratedValue annotations to primary key(s)
@@ -3,11 +3,14 @@ package pet.store.entity;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
@@ -18,6 +21,7 @@ import lombok.ToString;
 
 @Entity
 @Data
+@DynamicUpdate
 public class PetStore {
 
 	// add @ID and @GeneratedValue annotations to primary key(s)
@@ -32,6 +36,13 @@ public class PetStore {
 	private String petStoreZip;
 	private String petStorePhone;
 
+	/*
+	 * The location used for nearest store lookups. It is taken from the zip code
+	 * unless the coordinates are given explicitly.
+	 */
+	private Double petStoreLatitude;
+	private Double petStoreLongitude;
+
 	/*
 	 * Add @EqualsAndHashCode.Exclude and @ToString.Exclude to all of the recursive
 	 * relationship variables. This will prevent recursion from occurring when the
@@ -40,7 +51,8 @@ public class PetStore {
 	@EqualsAndHashCode.Exclude
 	@ToString.Exclude
 	@ManyToMany(cascade = CascadeType.PERSIST)
-	@JoinTable(name = "pet_store_customer", joinColumns = @JoinColumn(name = "pet_store_id"), inverseJoinColumns = @JoinColumn(name = "customer_id"))
+	@JoinTable(name = "pet_store_customer", joinColumns = @JoinColumn(name = "pet_store_id"), inverseJoinColumns = @JoinColumn(name = "customer_id"),
+			indexes = @Index(name = "idx_pet_store_customer", columnList = "pet_store_id, customer_id"))
 	private Set<Customer> customers = new HashSet<>();
 
 	@EqualsAndHashCode.Exclude
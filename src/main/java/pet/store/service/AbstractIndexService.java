@@ -0,0 +1,135 @@
+package pet.store.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+import pet.store.dao.shard.ShardRouter;
+
+/*
+ * The common part of the services that answer queries from an in-memory index.
+ * The index is built at startup by loading every shard in parallel. After that,
+ * each committed change from PetStoreService is applied on the task executor,
+ * so the committing request neither waits for it nor fails with it.
+ */
+@Slf4j
+public abstract class AbstractIndexService {
+
+	@Autowired
+	protected ShardRouter shardRouter;
+
+	@Autowired
+	private TransactionRunner transactionRunner;
+
+	@Autowired
+	private TaskExecutor taskExecutor;
+
+	/*
+	 * Committed changes waiting to be applied. One task at a time drains them in
+	 * commit order, so an older read of a row can never overwrite a newer one.
+	 * Changes committed during a rebuild wait here until the rebuild is done.
+	 */
+	private final Queue<PetStoreChangedEvent> pendingChanges = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private volatile boolean rebuilding;
+
+	/*
+	 * Empties the index before a rebuild.
+	 */
+	protected abstract void clearIndex();
+
+	/*
+	 * The loads that fill the index from one shard. Every load runs once per shard,
+	 * in parallel, each in its own read-only transaction.
+	 */
+	protected abstract List<Runnable> getShardLoads();
+
+	/*
+	 * Brings the index up to date with one committed change.
+	 */
+	protected abstract void applyChange(PetStoreChangedEvent event);
+
+	/*
+	 * What the index holds, for the log, such as "12 pet store locations".
+	 */
+	protected abstract String describeIndex();
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildIndex() {
+		rebuilding = true;
+
+		long start = System.currentTimeMillis();
+		clearIndex();
+
+		List<CompletableFuture<Void>> loads = new ArrayList<>();
+
+		for (int shard : shardRouter.getShards()) {
+			for (Runnable load : getShardLoads()) {
+				loads.add(CompletableFuture.runAsync(() -> readOnShard(shard, load), taskExecutor));
+			}
+		}
+
+		try {
+			CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new)).join();
+		} finally {
+			rebuilding = false;
+			drainChangesAsync();
+		}
+
+		log.info("Indexed {} in {} ms", describeIndex(), System.currentTimeMillis() - start);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onPetStoreChanged(PetStoreChangedEvent event) {
+		pendingChanges.add(event);
+		drainChangesAsync();
+	}
+
+	/*
+	 * Runs the work on a shard in a read-only transaction. This must not be called
+	 * on a request thread, which may already hold a connection.
+	 */
+	protected void readOnShard(int shard, Runnable work) {
+		shardRouter.callOnShard(shard, () -> transactionRunner.inReadOnlyTransaction(() -> {
+			work.run();
+			return null;
+		}));
+	}
+
+	private void drainChangesAsync() {
+		if (!rebuilding && !pendingChanges.isEmpty() && draining.compareAndSet(false, true)) {
+			taskExecutor.execute(this::drainChanges);
+		}
+	}
+
+	private void drainChanges() {
+		try {
+			PetStoreChangedEvent event;
+
+			while (!rebuilding && Objects.nonNull(event = pendingChanges.poll())) {
+				try {
+					applyChange(event);
+				} catch (RuntimeException ex) {
+					log.warn("Unable to apply {} to the index of {}", event, getClass().getSimpleName(), ex);
+				}
+			}
+		} finally {
+			draining.set(false);
+		}
+
+		// A change may have been queued after the last poll but before draining was reset.
+		drainChangesAsync();
+	}
+}
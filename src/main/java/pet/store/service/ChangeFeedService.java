@@ -0,0 +1,187 @@
+package pet.store.service;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import lombok.extern.slf4j.Slf4j;
+import pet.store.controller.model.ChangeEvent;
+import pet.store.controller.model.ChangeFeedData;
+
+/*
+ * Delivers the change log to clients, either by long-polling or as a stream
+ * of Server-Sent Events. Neither holds a request thread while waiting for
+ * changes.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService {
+
+	private static final int MAX_CHANGES_PER_POLL = 500;
+	private static final long DEFAULT_POLL_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+	private static final long MIN_POLL_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(1);
+	private static final long MAX_POLL_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(60);
+	private static final long STREAM_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+
+	@Autowired
+	private ChangeLog changeLog;
+
+	@Autowired
+	private TaskExecutor taskExecutor;
+
+	/*
+	 * Returns the changes after the cursor as soon as there are any, or an empty
+	 * response when the timeout expires. A missing cursor means "from now on".
+	 * The timeout is kept between one and sixty seconds; a servlet async timeout
+	 * of zero would mean the request never times out.
+	 */
+	public DeferredResult<ChangeFeedData> pollChanges(Long since, Long timeoutMs) {
+		long cursor = Objects.isNull(since) ? changeLog.getCursor() : since;
+		long timeout = Objects.isNull(timeoutMs) ? DEFAULT_POLL_TIMEOUT_MS
+				: Math.max(MIN_POLL_TIMEOUT_MS, Math.min(timeoutMs, MAX_POLL_TIMEOUT_MS));
+
+		DeferredResult<ChangeFeedData> result = new DeferredResult<>(timeout,
+				() -> changeLog.readSince(cursor, MAX_CHANGES_PER_POLL));
+
+		// The first change completes the poll with everything after the cursor, so
+		// the rest of a replay is skipped and a completed poll is never registered.
+		ChangeLog.Listener listener = new ChangeLog.Listener() {
+			@Override
+			public void onChange(ChangeEvent changeEvent) {
+				complete();
+			}
+
+			@Override
+			public void onReset() {
+				complete();
+			}
+
+			@Override
+			public boolean isDone() {
+				return result.isSetOrExpired();
+			}
+
+			private void complete() {
+				if (!result.isSetOrExpired()) {
+					result.setResult(changeLog.readSince(cursor, MAX_CHANGES_PER_POLL));
+				}
+			}
+		};
+
+		result.onCompletion(() -> changeLog.unsubscribe(listener));
+		changeLog.subscribe(cursor, listener);
+		return result;
+	}
+
+	/*
+	 * Streams the changes after the cursor, then every new change, as "change"
+	 * events whose ID is the cursor. If the cursor is too old a "reset" event is
+	 * sent first.
+	 */
+	public SseEmitter streamChanges(Long since) {
+		long cursor = Objects.isNull(since) ? changeLog.getCursor() : since;
+		SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+		StreamSubscriber subscriber = new StreamSubscriber(emitter);
+
+		emitter.onCompletion(subscriber::close);
+		emitter.onTimeout(subscriber::close);
+		emitter.onError(ex -> subscriber.close());
+
+		changeLog.subscribe(cursor, subscriber);
+		return emitter;
+	}
+
+	/*
+	 * Buffers changes for one stream in a bounded queue and writes them to the
+	 * client on the task executor, so a slow client never blocks the thread that
+	 * committed the change. The queue holds as many changes as the change log,
+	 * plus a reset event, so a full replay fits. A subscriber that falls further
+	 * behind than that is disconnected; the log no longer has the changes it
+	 * missed, so it reconnects from its last cursor and gets a reset.
+	 */
+	private class StreamSubscriber implements ChangeLog.Listener {
+		private final SseEmitter emitter;
+		private final int backlogLimit = changeLog.getCapacity();
+		private final Queue<Object> queue = new LinkedBlockingQueue<>(backlogLimit + 1);
+		private final AtomicBoolean draining = new AtomicBoolean();
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		StreamSubscriber(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void onChange(ChangeEvent changeEvent) {
+			enqueue(changeEvent);
+		}
+
+		@Override
+		public void onReset() {
+			enqueue(SseEmitter.event().name("reset").data(changeLog.getCursor()));
+		}
+
+		@Override
+		public boolean isDone() {
+			return closed.get();
+		}
+
+		private void enqueue(Object item) {
+			if (closed.get()) {
+				return;
+			}
+
+			if (!queue.offer(item)) {
+				log.info("Disconnecting change stream subscriber that fell {} changes behind", backlogLimit);
+				close();
+				taskExecutor.execute(emitter::complete);
+				return;
+			}
+
+			if (draining.compareAndSet(false, true)) {
+				taskExecutor.execute(this::drain);
+			}
+		}
+
+		private void drain() {
+			try {
+				Object item;
+
+				while (!closed.get() && Objects.nonNull(item = queue.poll())) {
+					if (item instanceof ChangeEvent changeEvent) {
+						emitter.send(SseEmitter.event().id(String.valueOf(changeEvent.getCursor())).name("change")
+								.data(changeEvent));
+					} else {
+						emitter.send((SseEmitter.SseEventBuilder) item);
+					}
+				}
+			} catch (IOException | IllegalStateException ex) {
+				close();
+				return;
+			} finally {
+				draining.set(false);
+			}
+
+			// A change may have been queued after the loop ended but before the flag
+			// was cleared.
+			if (!queue.isEmpty() && !closed.get() && draining.compareAndSet(false, true)) {
+				taskExecutor.execute(this::drain);
+			}
+		}
+
+		void close() {
+			if (closed.compareAndSet(false, true)) {
+				changeLog.unsubscribe(this);
+				queue.clear();
+			}
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package pet.store.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import pet.store.controller.model.ChangeEvent;
+import pet.store.controller.model.ChangeFeedData;
+
+/*
+ * An in-memory, bounded log of committed changes. Changes are appended only
+ * after the transaction that made them commits, so readers never see a change
+ * that is later rolled back. The oldest changes are overwritten once the log
+ * is full; a reader that falls that far behind gets a reset flag and must
+ * reload instead of resuming.
+ */
+@Component
+public class ChangeLog {
+
+	/*
+	 * Receives every change appended after it subscribes. Listeners are called
+	 * while the log is locked, so they must hand the change off and return
+	 * quickly. A listener that is done, for example because its client went
+	 * away, gets no more of its replay and is not registered.
+	 */
+	public interface Listener {
+		void onChange(ChangeEvent changeEvent);
+
+		default void onReset() {
+		}
+
+		default boolean isDone() {
+			return false;
+		}
+	}
+
+	private final ChangeEvent[] buffer;
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+	private long lastCursor;
+
+	public ChangeLog(@Value("${pet-store.change-log.capacity:10000}") int capacity) {
+		this.buffer = new ChangeEvent[capacity];
+	}
+
+	/*
+	 * If there is no transaction the change has already been committed, so it is
+	 * recorded straight away.
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onPetStoreChanged(PetStoreChangedEvent event) {
+		append(event);
+	}
+
+	public synchronized ChangeEvent append(PetStoreChangedEvent event) {
+		ChangeEvent changeEvent = new ChangeEvent(++lastCursor, event.entityType(), event.action(),
+				event.petStoreId(), event.entityId(), Instant.now());
+
+		buffer[(int) (lastCursor % buffer.length)] = changeEvent;
+
+		for (Listener listener : listeners) {
+			listener.onChange(changeEvent);
+		}
+
+		return changeEvent;
+	}
+
+	public int getCapacity() {
+		return buffer.length;
+	}
+
+	public synchronized long getCursor() {
+		return lastCursor;
+	}
+
+	/*
+	 * Returns up to maxChanges changes after the given cursor. A cursor in the
+	 * future (for example from before a restart) is treated as a reset.
+	 */
+	public synchronized ChangeFeedData readSince(long since, int maxChanges) {
+		ChangeFeedData changeFeedData = new ChangeFeedData();
+		long first = since + 1;
+
+		if (isReset(since)) {
+			changeFeedData.setReset(true);
+			first = oldestCursor();
+		}
+
+		long last = Math.min(lastCursor, first + maxChanges - 1);
+
+		for (long cursor = first; cursor <= last; cursor++) {
+			changeFeedData.getChanges().add(buffer[(int) (cursor % buffer.length)]);
+		}
+
+		changeFeedData.setCursor(Math.max(first - 1, last));
+		return changeFeedData;
+	}
+
+	/*
+	 * Replays the retained changes after the given cursor to the listener and then
+	 * registers it for new changes, without gaps or duplicates in between. The
+	 * replay stops as soon as the listener is done, and a listener that is done
+	 * by the end of it is not registered.
+	 */
+	public synchronized void subscribe(long since, Listener listener) {
+		ChangeFeedData backlog = readSince(since, buffer.length);
+
+		if (backlog.isReset()) {
+			listener.onReset();
+		}
+
+		for (ChangeEvent changeEvent : backlog.getChanges()) {
+			if (listener.isDone()) {
+				return;
+			}
+
+			listener.onChange(changeEvent);
+		}
+
+		if (!listener.isDone()) {
+			listeners.add(listener);
+		}
+	}
+
+	public void unsubscribe(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	private boolean isReset(long since) {
+		return since > lastCursor || since + 1 < oldestCursor();
+	}
+
+	private long oldestCursor() {
+		return Math.max(1, lastCursor - buffer.length + 1);
+	}
+}
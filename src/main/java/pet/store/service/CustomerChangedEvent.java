@@ -0,0 +1,10 @@
+package pet.store.service;
+
+import java.util.Map;
+
+/*
+ * Published by the pet store service whenever an existing customer's fields
+ * change. The changes map attribute names to their new values, as in a patch.
+ */
+public record CustomerChangedEvent(Long customerId, Map<String, Object> changes) {
+}
@@ -0,0 +1,92 @@
+package pet.store.service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.extern.slf4j.Slf4j;
+import pet.store.dao.EntityPatchDao;
+import pet.store.dao.shard.ShardRouter;
+import pet.store.entity.Customer;
+
+/*
+ * Keeps the copies of a customer on different shards in step. Each committed
+ * change to a customer is applied on the task executor to every shard,
+ * including the one it was made on. The changes are applied one at a time in
+ * commit order, so when two shards change the same customer at once, every
+ * copy ends up with the later change.
+ */
+@Component
+@ConditionalOnProperty("pet-store.sharding.enabled")
+@Slf4j
+public class CustomerReplicator {
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private TransactionRunner transactionRunner;
+
+	@Autowired
+	private EntityPatchDao entityPatchDao;
+
+	@Autowired
+	private TaskExecutor taskExecutor;
+
+	private final Queue<CustomerChangedEvent> pendingChanges = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onCustomerChanged(CustomerChangedEvent event) {
+		pendingChanges.add(event);
+		drainChangesAsync();
+	}
+
+	private void drainChangesAsync() {
+		if (!pendingChanges.isEmpty() && draining.compareAndSet(false, true)) {
+			taskExecutor.execute(this::drainChanges);
+		}
+	}
+
+	private void drainChanges() {
+		try {
+			CustomerChangedEvent event;
+
+			while (Objects.nonNull(event = pendingChanges.poll())) {
+				try {
+					replicate(event);
+				} catch (RuntimeException ex) {
+					log.warn("Unable to replicate {} to every shard", event, ex);
+				}
+			}
+		} finally {
+			draining.set(false);
+		}
+
+		// A change may have been queued after the last poll but before draining was reset.
+		drainChangesAsync();
+	}
+
+	/*
+	 * The shards are patched one after another on the draining thread, which must
+	 * not wait on other task executor threads. A shard without a copy of the
+	 * customer simply updates no rows.
+	 */
+	private void replicate(CustomerChangedEvent event) {
+		Map<Long, Map<String, Object>> patch = Map.of(event.customerId(), event.changes());
+
+		for (int shard : shardRouter.getShards()) {
+			shardRouter.callOnShard(shard,
+					() -> transactionRunner.inTransaction(() -> entityPatchDao.patch(Customer.class, patch, null)));
+		}
+	}
+}
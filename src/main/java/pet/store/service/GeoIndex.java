@@ -0,0 +1,153 @@
+package pet.store.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+import pet.store.controller.model.PetStoreData;
+
+/*
+ * An in-memory k-d tree of pet store locations. Each location is stored as a
+ * point on the unit sphere in three dimensions, so a k nearest query visits
+ * about log(n) nodes and needs no special handling near the poles or the date
+ * line.
+ *
+ * The tree itself is immutable. Changes are recorded in a map and the tree is
+ * rebuilt from it by the first query after a change, which keeps queries free
+ * of locks and lets a bulk load rebuild the tree only once.
+ */
+public class GeoIndex {
+
+	public record Hit(PetStoreData petStore, double distanceKm) {
+	}
+
+	private record Entry(PetStoreData petStore, double[] vector) {
+	}
+
+	private record Node(Entry entry, int axis, Node left, Node right) {
+	}
+
+	private record Candidate(Entry entry, double distanceSquared) {
+	}
+
+	private final Map<Long, Entry> entries = new HashMap<>();
+	private volatile Node root;
+	private volatile boolean dirty;
+
+	/*
+	 * Adds or moves a pet store. The pet store data is returned as is by queries,
+	 * so it should not include customers or employees.
+	 */
+	public synchronized void put(PetStoreData petStore, GeoPoint location) {
+		entries.put(petStore.getPetStoreId(), new Entry(petStore, location.toUnitVector()));
+		dirty = true;
+	}
+
+	public synchronized void remove(Long petStoreId) {
+		if (Objects.nonNull(entries.remove(petStoreId))) {
+			dirty = true;
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		dirty = true;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/*
+	 * Returns up to k pet stores closest to the origin, nearest first. If a radius
+	 * is given, pet stores farther away than that are left out.
+	 */
+	public List<Hit> nearest(GeoPoint origin, int k, Double radiusKm) {
+		Node tree = dirty ? rebuild() : root;
+		double[] target = origin.toUnitVector();
+		double maxChord = Objects.isNull(radiusKm) ? 2.0 : GeoPoint.kmToChord(radiusKm);
+
+		// Farthest of the best k so far at the head, so it can be replaced.
+		PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distanceSquared)
+				.reversed());
+
+		search(tree, target, k, maxChord * maxChord, best);
+
+		List<Hit> hits = new ArrayList<>(best.size());
+
+		while (!best.isEmpty()) {
+			Candidate candidate = best.poll();
+			hits.add(0, new Hit(candidate.entry().petStore(),
+					GeoPoint.chordToKm(Math.sqrt(candidate.distanceSquared()))));
+		}
+
+		return hits;
+	}
+
+	private void search(Node node, double[] target, int k, double maxDistanceSquared, PriorityQueue<Candidate> best) {
+		if (Objects.isNull(node)) {
+			return;
+		}
+
+		double distanceSquared = distanceSquared(node.entry().vector(), target);
+
+		if (distanceSquared <= maxDistanceSquared) {
+			if (best.size() < k) {
+				best.add(new Candidate(node.entry(), distanceSquared));
+			} else if (distanceSquared < best.peek().distanceSquared()) {
+				best.poll();
+				best.add(new Candidate(node.entry(), distanceSquared));
+			}
+		}
+
+		double split = target[node.axis()] - node.entry().vector()[node.axis()];
+		Node near = split < 0 ? node.left() : node.right();
+		Node far = split < 0 ? node.right() : node.left();
+
+		search(near, target, k, maxDistanceSquared, best);
+
+		// The far side can only hold closer points if the splitting plane is closer.
+		double limit = best.size() < k ? maxDistanceSquared
+				: Math.min(maxDistanceSquared, best.peek().distanceSquared());
+
+		if (split * split <= limit) {
+			search(far, target, k, maxDistanceSquared, best);
+		}
+	}
+
+	private synchronized Node rebuild() {
+		if (dirty) {
+			dirty = false;
+			root = build(entries.values().toArray(Entry[]::new), 0, entries.size(), 0);
+		}
+
+		return root;
+	}
+
+	private Node build(Entry[] points, int from, int to, int depth) {
+		if (from >= to) {
+			return null;
+		}
+
+		int axis = depth % 3;
+		int median = (from + to) >>> 1;
+
+		Arrays.sort(points, from, to, Comparator.comparingDouble(entry -> entry.vector()[axis]));
+
+		return new Node(points[median], axis, build(points, from, median, depth + 1),
+				build(points, median + 1, to, depth + 1));
+	}
+
+	private static double distanceSquared(double[] a, double[] b) {
+		double dx = a[0] - b[0];
+		double dy = a[1] - b[1];
+		double dz = a[2] - b[2];
+
+		return dx * dx + dy * dy + dz * dz;
+	}
+}
@@ -0,0 +1,50 @@
+package pet.store.service;
+
+import java.util.Objects;
+
+/*
+ * A latitude and longitude in degrees. Distances are great circle distances on
+ * a spherical Earth, which is accurate to well under one percent.
+ */
+public record GeoPoint(double latitude, double longitude) {
+
+	public static final double EARTH_RADIUS_KM = 6371.0;
+
+	public GeoPoint {
+		if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+			throw new IllegalStateException("Invalid coordinates " + latitude + ", " + longitude
+					+ ". Latitude must be between -90 and 90 and longitude between -180 and 180.");
+		}
+	}
+
+	/*
+	 * Returns the point, or null if either coordinate is missing.
+	 */
+	public static GeoPoint ofNullable(Double latitude, Double longitude) {
+		return Objects.isNull(latitude) || Objects.isNull(longitude) ? null : new GeoPoint(latitude, longitude);
+	}
+
+	/*
+	 * The point as a unit vector from the center of the Earth. The straight line
+	 * distance between two of these vectors grows with the great circle distance,
+	 * so nearest neighbors can be found with plain Euclidean geometry.
+	 */
+	double[] toUnitVector() {
+		double lat = Math.toRadians(latitude);
+		double lon = Math.toRadians(longitude);
+
+		return new double[] { Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat) };
+	}
+
+	/*
+	 * Converts a straight line distance between unit vectors to kilometers along
+	 * the surface, and back.
+	 */
+	static double chordToKm(double chord) {
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, chord / 2));
+	}
+
+	static double kmToChord(double km) {
+		return km >= Math.PI * EARTH_RADIUS_KM ? 2.0 : 2 * Math.sin(km / (2 * EARTH_RADIUS_KM));
+	}
+}
@@ -0,0 +1,149 @@
+package pet.store.service;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import pet.store.controller.model.ChangeEvent.Action;
+import pet.store.controller.model.ChangeEvent.EntityType;
+import pet.store.controller.model.NearestPetStoreData;
+import pet.store.controller.model.NearestPetStoreResultData;
+import pet.store.controller.model.PetStoreData;
+import pet.store.dao.PetStoreDao;
+import pet.store.entity.PetStore;
+
+/*
+ * Answers "which pet stores are closest to me?" from an in-memory spatial
+ * index instead of the database. The index is built at startup from every
+ * shard in parallel, and afterwards each committed pet store save or delete
+ * from PetStoreService re-reads just that pet store. Pet stores with neither
+ * coordinates nor a known zip code can't be placed; they are reported with
+ * every result instead.
+ */
+@Service
+public class NearestPetStoreService extends AbstractIndexService {
+
+	private static final int DEFAULT_COUNT = 5;
+	private static final int MAX_COUNT = 100;
+
+	@Autowired
+	private PetStoreDao petStoreDao;
+
+	@Autowired
+	private ZipCentroids zipCentroids;
+
+	private final GeoIndex geoIndex = new GeoIndex();
+	private final Set<Long> unlocatedPetStoreIds = new ConcurrentSkipListSet<>();
+	private final AtomicInteger unlocatedPetStoreCount = new AtomicInteger();
+
+	/*
+	 * Finds the pet stores nearest to a zip code, or to a latitude and longitude
+	 * when no zip code is given.
+	 */
+	public NearestPetStoreResultData findNearest(String zip, Double latitude, Double longitude, Integer count,
+			Double radiusKm) {
+		GeoPoint origin;
+
+		if (Objects.nonNull(zip)) {
+			origin = zipCentroids.find(zip).orElseThrow(() -> new NoSuchElementException("Location unavailable: zip code "
+					+ zip + " is not in the zip code table. Search by lat and lon instead."));
+		} else if (Objects.nonNull(latitude) && Objects.nonNull(longitude)) {
+			origin = new GeoPoint(latitude, longitude);
+		} else {
+			throw new IllegalStateException("Either zip or both lat and lon must be given.");
+		}
+
+		if (Objects.nonNull(radiusKm) && !(radiusKm > 0)) {
+			throw new IllegalStateException("radiusKm must be greater than zero.");
+		}
+
+		int k = Objects.isNull(count) || count < 1 ? DEFAULT_COUNT : Math.min(count, MAX_COUNT);
+		NearestPetStoreResultData result = new NearestPetStoreResultData();
+
+		for (GeoIndex.Hit hit : geoIndex.nearest(origin, k, radiusKm)) {
+			result.getPetStores()
+					.add(new NearestPetStoreData(hit.petStore(), Math.round(hit.distanceKm() * 100) / 100.0));
+		}
+
+		result.setUnlocatedPetStoreCount(unlocatedPetStoreCount.get());
+		result.getUnlocatedPetStoreIds().addAll(unlocatedPetStoreIds.stream().limit(MAX_COUNT).toList());
+
+		return result;
+	}
+
+	@Override
+	protected void clearIndex() {
+		geoIndex.clear();
+		unlocatedPetStoreIds.clear();
+		unlocatedPetStoreCount.set(0);
+	}
+
+	@Override
+	protected List<Runnable> getShardLoads() {
+		return List.of(() -> petStoreDao.findAll().forEach(this::indexPetStore));
+	}
+
+	@Override
+	protected String describeIndex() {
+		return "the locations of " + geoIndex.size() + " pet stores (" + unlocatedPetStoreCount.get()
+				+ " without a known location)";
+	}
+
+	@Override
+	protected void applyChange(PetStoreChangedEvent event) {
+		if (event.entityType() != EntityType.PET_STORE) {
+			return;
+		}
+
+		if (event.action() == Action.DELETED) {
+			removePetStore(event.petStoreId());
+			return;
+		}
+
+		readOnShard(shardRouter.shardFor(event.petStoreId()), () -> petStoreDao.findById(event.petStoreId())
+				.ifPresentOrElse(this::indexPetStore, () -> removePetStore(event.petStoreId())));
+	}
+
+	/*
+	 * Pet stores saved before locations were recorded are placed by their zip
+	 * code.
+	 */
+	private void indexPetStore(PetStore petStore) {
+		PetStoreData petStoreData = new PetStoreData(petStore, false, false);
+		GeoPoint location = GeoPoint.ofNullable(petStore.getPetStoreLatitude(), petStore.getPetStoreLongitude());
+
+		if (Objects.isNull(location)) {
+			location = zipCentroids.find(petStore.getPetStoreZip()).orElse(null);
+		}
+
+		if (Objects.isNull(location)) {
+			geoIndex.remove(petStore.getPetStoreId());
+
+			if (unlocatedPetStoreIds.add(petStore.getPetStoreId())) {
+				unlocatedPetStoreCount.incrementAndGet();
+			}
+		} else {
+			petStoreData.setPetStoreLatitude(location.latitude());
+			petStoreData.setPetStoreLongitude(location.longitude());
+			geoIndex.put(petStoreData, location);
+			removeUnlocated(petStore.getPetStoreId());
+		}
+	}
+
+	private void removePetStore(Long petStoreId) {
+		geoIndex.remove(petStoreId);
+		removeUnlocated(petStoreId);
+	}
+
+	private void removeUnlocated(Long petStoreId) {
+		if (unlocatedPetStoreIds.remove(petStoreId)) {
+			unlocatedPetStoreCount.decrementAndGet();
+		}
+	}
+}
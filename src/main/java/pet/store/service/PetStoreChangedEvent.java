@@ -0,0 +1,11 @@
+package pet.store.service;
+
+import pet.store.controller.model.ChangeEvent.Action;
+import pet.store.controller.model.ChangeEvent.EntityType;
+
+/*
+ * Published by the pet store service whenever it saves or deletes something.
+ * The change log records it once the transaction has committed.
+ */
+public record PetStoreChangedEvent(EntityType entityType, Action action, Long petStoreId, Long entityId) {
+}
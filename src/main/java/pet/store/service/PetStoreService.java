@@ -1,20 +1,46 @@
 package pet.store.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import pet.store.controller.model.ChangeEvent.Action;
+import pet.store.controller.model.ChangeEvent.EntityType;
+import pet.store.controller.model.KeysetPage;
+import pet.store.controller.model.PatchResultData;
 import pet.store.controller.model.PetStoreCustomer;
 import pet.store.controller.model.PetStoreData;
 import pet.store.controller.model.PetStoreEmployee;
+import pet.store.controller.model.PetStoreMultiGetData;
 import pet.store.dao.CustomerDao;
 import pet.store.dao.EmployeeDao;
+import pet.store.dao.EntityPatchDao;
+import pet.store.dao.EntityPatchDao.Scope;
 import pet.store.dao.PetStoreDao;
+import pet.store.dao.shard.ShardRouter;
 import pet.store.entity.Customer;
 import pet.store.entity.Employee;
 import pet.store.entity.PetStore;
@@ -22,6 +48,32 @@ import pet.store.entity.PetStore;
 @Service
 public class PetStoreService {
 
+	/*
+	 * Page sizes for the employee and customer listings. Requests for larger pages
+	 * are capped at MAX_PAGE_SIZE so a single call can't pull a whole store.
+	 */
+	private static final int DEFAULT_PAGE_SIZE = 50;
+	private static final int MAX_PAGE_SIZE = 500;
+
+	/*
+	 * The most pet stores that can be fetched in one multi-get request, and the
+	 * cache used by multi-get when a CacheManager is configured. The cache holds
+	 * only pet store summaries, without customers or employees, and an entry is
+	 * evicted after each committed write to that pet store.
+	 */
+	private static final int MAX_MULTI_GET_IDS = 500;
+	public static final String PET_STORE_CACHE = "petStores";
+	private static final String EXPAND_CUSTOMERS = "customers";
+	private static final String EXPAND_EMPLOYEES = "employees";
+
+	/*
+	 * The most rows one bulk PATCH request may change. Rows must belong to the pet
+	 * store in the URI; customers belong to it through the join table.
+	 */
+	private static final int MAX_BULK_PATCH_SIZE = 1000;
+	private static final String EMPLOYEE_SCOPE = "pet_store_id = ?";
+	private static final String CUSTOMER_SCOPE = "customer_id IN (SELECT customer_id FROM pet_store_customer WHERE pet_store_id = ?)";
+
 	/*
 	 * Add a PetStoreDao object named petStoreDao as a private instance variable.
 	 * Annotate the instance variable with @Autowired so that Spring can inject the
@@ -40,6 +92,33 @@ public class PetStoreService {
 	@Autowired
 	private CustomerDao customerDao;
 
+	@Autowired
+	private EntityPatchDao entityPatchDao;
+
+	@Autowired
+	private ObjectProvider<CacheManager> cacheManagerProvider;
+
+	/*
+	 * Every save and delete publishes a PetStoreChangedEvent. The change log
+	 * records it after the transaction commits.
+	 */
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/*
+	 * Methods given a pet store ID select its shard themselves before starting a
+	 * transaction, so callers never have to. Methods that span pet stores run
+	 * once per shard through the shard router, with a transaction per shard.
+	 */
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private TransactionRunner transactionRunner;
+
+	@Autowired
+	private ZipCentroids zipCentroids;
+
 	/*
 	 * This method will save a pet store. It first instantiates a petStoreId, then
 	 * checks to see if the pet store already exists using findOrCreatePetStore
@@ -50,13 +129,21 @@ public class PetStoreService {
 	 */
 	public PetStoreData savePetStore(PetStoreData petStoreData) {
 		Long petStoreId = petStoreData.getPetStoreId();
+		int shard = Objects.isNull(petStoreId) ? shardRouter.nextShardForNewPetStore()
+				: shardRouter.shardFor(petStoreId);
+
+		// The shard is chosen first, then the whole save and the copy to PetStoreData
+		// run in one transaction on it, so nothing is loaded after the session closes.
+		return shardRouter.callOnShard(shard, () -> transactionRunner.inTransaction(() -> {
+			PetStore petStore = findOrCreatePetStore(petStoreId);
 
-		PetStore petStore = findOrCreatePetStore(petStoreId);
+			copyPetStoreFields(petStore, petStoreData);
 
-		copyPetStoreFields(petStore, petStoreData);
+			PetStore dbPetStore = petStoreDao.save(petStore);
+			publishChange(EntityType.PET_STORE, Action.SAVED, dbPetStore.getPetStoreId(), dbPetStore.getPetStoreId());
 
-		PetStore dbPetStore = petStoreDao.save(petStore);
-		return new PetStoreData(dbPetStore);
+			return new PetStoreData(dbPetStore);
+		}));
 	}
 
 	private void copyPetStoreFields(PetStore petStore, PetStoreData petStoreData) {
@@ -67,6 +154,17 @@ public class PetStoreService {
 		petStore.setPetStoreState(petStoreData.getPetStoreState());
 		petStore.setPetStoreZip(petStoreData.getPetStoreZip());
 		petStore.setPetStorePhone(petStoreData.getPetStorePhone());
+
+		// Place the pet store at the center of its zip code unless a location is given.
+		GeoPoint location = GeoPoint.ofNullable(petStoreData.getPetStoreLatitude(),
+				petStoreData.getPetStoreLongitude());
+
+		if (Objects.isNull(location)) {
+			location = zipCentroids.find(petStoreData.getPetStoreZip()).orElse(null);
+		}
+
+		petStore.setPetStoreLatitude(Objects.isNull(location) ? null : location.latitude());
+		petStore.setPetStoreLongitude(Objects.isNull(location) ? null : location.longitude());
 	}
 
 	private PetStore findOrCreatePetStore(Long petStoreId) {
@@ -147,37 +245,39 @@ public class PetStoreService {
 	 * and a PetStoreEmployee object as parameters. It must return a
 	 * PetStoreEmployee object.
 	 */
-	@Transactional(readOnly = false)
 	public PetStoreEmployee saveEmployee(Long petStoreId, PetStoreEmployee petStoreEmployee) {
-		// Call findPetStoreById() to find the pet store object.
-		PetStore petStore = findPetStoreById(petStoreId);
-
-		Long employeeId = petStoreEmployee.getEmployeeId();
-
-		// Call findOrCreateEmployee() to retrieve an existing employee or to create a
-		// new one
-		Employee employee = findOrCreateEmployee(employeeId, petStoreId);
-
-		/*
-		 * Call copyEmployeeFields() to copy the data in the pet store employee
-		 * parameter (which ultimately came from the JSON in the HTTP POST request
-		 * payload) to the Employee object.
-		 */
-		copyEmployeeFields(employee, petStoreEmployee);
-
-		// Set the PetStore object in the Employee object.
-		employee.setPetStore(petStore);
-
-		// Add the Employee object into the Set of Employee objects in the PetStore
-		// object.
-		petStore.getEmployees().add(employee);
-
-		// Save the employee by calling the save() method in the employee DAO.
-		Employee dbEmployee = employeeDao.save(employee);
-
-		// Convert the Employee object returned by the save method to a PetStoreEmployee
-		// object and return it.
-		return new PetStoreEmployee(dbEmployee);
+		return inTransactionOnShardOf(petStoreId, () -> {
+			// Call findPetStoreById() to find the pet store object.
+			PetStore petStore = findPetStoreById(petStoreId);
+
+			Long employeeId = petStoreEmployee.getEmployeeId();
+
+			// Call findOrCreateEmployee() to retrieve an existing employee or to create a
+			// new one
+			Employee employee = findOrCreateEmployee(employeeId, petStoreId);
+
+			/*
+			 * Call copyEmployeeFields() to copy the data in the pet store employee
+			 * parameter (which ultimately came from the JSON in the HTTP POST request
+			 * payload) to the Employee object.
+			 */
+			copyEmployeeFields(employee, petStoreEmployee);
+
+			// Set the PetStore object in the Employee object.
+			employee.setPetStore(petStore);
+
+			// Add the Employee object into the Set of Employee objects in the PetStore
+			// object.
+			petStore.getEmployees().add(employee);
+
+			// Save the employee by calling the save() method in the employee DAO.
+			Employee dbEmployee = employeeDao.save(employee);
+			publishChange(EntityType.EMPLOYEE, Action.SAVED, petStoreId, dbEmployee.getEmployeeId());
+
+			// Convert the Employee object returned by the save method to a PetStoreEmployee
+			// object and return it.
+			return new PetStoreEmployee(dbEmployee);
+		});
 	} // end of saveEmployee
 
 	/*
@@ -185,7 +285,8 @@ public class PetStoreService {
 	 * means that a Customer object has a List of PetStore objects. This means that,
 	 * in the method findCustomerById(), you will need to loop through the list of
 	 * PetStore objects looking for the pet store with the given pet store ID. If
-	 * not found, throw an IllegalArgumentException.
+	 * not found, throw a NoSuchElementException, the same as patchCustomer does
+	 * for a customer outside the pet store.
 	 */
 	private Customer findCustomerById(Long petStoreId, Long customerId) {
 		Customer customer = customerDao.findById(customerId)
@@ -196,14 +297,14 @@ public class PetStoreService {
 		// loop through list of PetStore objects in customer
 		for (PetStore petStore : customer.getPetStores()) {
 			// if the given pet store ID is found, break the loop
-			if (petStore.getPetStoreId() == petStoreId) {
+			if (Objects.equals(petStore.getPetStoreId(), petStoreId)) {
 				found = true;
 				break;
 			}
 		}
-		// if the given pet store ID isn't found, through an IllegalArgumentException
+		// if the given pet store ID isn't found, throw a NoSuchElementException
 		if (!found) {
-			throw new IllegalArgumentException(
+			throw new NoSuchElementException(
 					"The customer with ID=" + customerId + " is not a member of the pet store with ID=" + petStoreId);
 		}
 
@@ -250,55 +351,520 @@ public class PetStoreService {
 	 * where {ID} is the primary key value of an existing pet store record. You can
 	 * find sample JSON to add a customer in the student resources.
 	 */
-	@Transactional(readOnly = false)
 	public PetStoreCustomer saveCustomer(Long petStoreId, PetStoreCustomer petStoreCustomer) {
-		// Call findPetStoreById() to find the pet store object.
-		PetStore petStore = findPetStoreById(petStoreId);
-		Long customerId = petStoreCustomer.getCustomerId();
-		Customer customer = findOrCreateCustomer(customerId, petStoreId);
+		return inTransactionOnShardOf(petStoreId, () -> {
+			// Call findPetStoreById() to find the pet store object.
+			PetStore petStore = findPetStoreById(petStoreId);
+			Long customerId = petStoreCustomer.getCustomerId();
+			Customer customer = findOrCreateCustomer(customerId, petStoreId);
 
-		copyCustomerFields(customer, petStoreCustomer);
+			copyCustomerFields(customer, petStoreCustomer);
 
-		customer.getPetStores().add(petStore);
-		petStore.getCustomers().add(customer);
+			customer.getPetStores().add(petStore);
+			petStore.getCustomers().add(customer);
 
-		Customer dbCustomer = customerDao.save(customer);
+			Customer dbCustomer = customerDao.save(customer);
+			publishChange(EntityType.CUSTOMER, Action.SAVED, petStoreId, dbCustomer.getCustomerId());
 
-		return new PetStoreCustomer(dbCustomer);
+			if (Objects.nonNull(customerId)) {
+				publishCustomerChange(customerId, toCustomerChanges(petStoreCustomer));
+			}
+
+			return new PetStoreCustomer(dbCustomer);
+		});
 	} // end of saveCustomer
 
-	@Transactional(readOnly = true)
+	/*
+	 * Makes an existing customer a member of the pet store. A customer whose home
+	 * shard (the shard its ID was allocated on) is not the pet store's shard is
+	 * copied to the pet store's shard under the same ID, unless a copy is already
+	 * there. From then on the CustomerReplicator keeps the copies in step.
+	 */
+	public PetStoreCustomer addCustomer(Long petStoreId, Long customerId) {
+		int shard = shardRouter.shardFor(petStoreId);
+		int homeShard = shardRouter.findShard(customerId)
+				.orElseThrow(() -> new NoSuchElementException("Customer with ID=" + customerId + " was not found."));
+
+		// Read the customer on its home shard first, since a transaction can only use one shard.
+		PetStoreCustomer homeCustomer = homeShard == shard ? null
+				: shardRouter.callOnShard(homeShard, () -> transactionRunner.inReadOnlyTransaction(
+						() -> customerDao.findById(customerId).map(PetStoreCustomer::new).orElse(null)));
+
+		return inTransactionOnShardOf(petStoreId, () -> {
+			PetStore petStore = findPetStoreById(petStoreId);
+			Customer customer = customerDao.findById(customerId).orElse(null);
+
+			if (Objects.isNull(customer)) {
+				if (Objects.isNull(homeCustomer)) {
+					throw new NoSuchElementException("Customer with ID=" + customerId + " was not found.");
+				}
+
+				// Save the copy before linking it, so the managed copy is what joins the pet store.
+				Customer copy = new Customer();
+				copyCustomerFields(copy, homeCustomer);
+				customer = customerDao.save(copy);
+			}
+
+			customer.getPetStores().add(petStore);
+			petStore.getCustomers().add(customer);
+			publishChange(EntityType.CUSTOMER, Action.SAVED, petStoreId, customerId);
+
+			return new PetStoreCustomer(customer);
+		});
+	}
+
+	private Map<String, Object> toCustomerChanges(PetStoreCustomer petStoreCustomer) {
+		Map<String, Object> changes = new HashMap<>();
+
+		changes.put("customerFirstName", petStoreCustomer.getCustomerFirstName());
+		changes.put("customerLastName", petStoreCustomer.getCustomerLastName());
+		changes.put("customerEmail", petStoreCustomer.getCustomerEmail());
+		return changes;
+	}
+
+	/*
+	 * Tells the CustomerReplicator, once the transaction commits, to copy the
+	 * changes to the customer's copies on other shards.
+	 */
+	private void publishCustomerChange(Long customerId, Map<String, Object> changes) {
+		eventPublisher.publishEvent(new CustomerChangedEvent(customerId, changes));
+	}
+
+	/*
+	 * Gathers the pet stores from every shard and merges them in ID order.
+	 */
 	public List<PetStoreData> retrieveAllPetStores() {
+		List<PetStoreData> result = new LinkedList<>();
+
+		for (List<PetStoreData> shardResult : shardRouter
+				.callOnAllShards(shard -> transactionRunner.inReadOnlyTransaction(this::retrieveShardPetStores))) {
+			result.addAll(shardResult);
+		}
+
+		result.sort(Comparator.comparing(PetStoreData::getPetStoreId));
+		return result;
+	}
+
+	private List<PetStoreData> retrieveShardPetStores() {
 
 		// Call the findAll() method in the pet store DAO. Convert the List of
 		// PetStore objects to a List of PetStoreData objects.
 		List<PetStore> petStores = petStoreDao.findAll();
 		List<PetStoreData> result = new LinkedList<>();
 
-		// Remove all customer and employee objects in each PetStoreData object.
+		// Leave out the customer and employee objects, so they are never loaded.
 		for (PetStore petStore : petStores) {
-			PetStoreData petStoreData = new PetStoreData(petStore);
-			
-			// comment these lines out to see the customers and employees at each store
-			petStoreData.getCustomers().clear();
-			petStoreData.getEmployees().clear();
-			
-			result.add(petStoreData);
+			result.add(new PetStoreData(petStore, false, false));
 		}
 		
 		return result;
-	} // end of retrieveAllPetStores
+	}
 
-	@Transactional(readOnly = true)
 	public PetStoreData retrievePetStoreById(Long petStoreId) {
-		PetStore petStore = findPetStoreById(petStoreId);
-		return new PetStoreData(petStore);
+		return inReadOnlyTransactionOnShardOf(petStoreId, () -> {
+			PetStore petStore = findPetStoreById(petStoreId);
+			return new PetStoreData(petStore);
+		});
 	}
 
-	@Transactional(readOnly = false)
 	public void deletePetStoreById(Long petStoreId) {
-		PetStore petStore = findPetStoreById(petStoreId);
-		petStoreDao.delete(petStore);
+		inTransactionOnShardOf(petStoreId, () -> {
+			PetStore petStore = findPetStoreById(petStoreId);
+			petStoreDao.delete(petStore);
+			publishChange(EntityType.PET_STORE, Action.DELETED, petStoreId, petStoreId);
+			return null;
+		});
+	}
+
+	/*
+	 * Runs the work in a transaction on the shard that owns the pet store. An ID
+	 * outside every shard's range can't belong to a pet store.
+	 */
+	private <T> T inTransactionOnShardOf(Long petStoreId, Supplier<T> work) {
+		return shardRouter.callOnShard(shardRouter.shardFor(petStoreId), () -> transactionRunner.inTransaction(work));
+	}
+
+	private <T> T inReadOnlyTransactionOnShardOf(Long petStoreId, Supplier<T> work) {
+		return shardRouter.callOnShard(shardRouter.shardFor(petStoreId),
+				() -> transactionRunner.inReadOnlyTransaction(work));
+	}
+
+	private void publishChange(EntityType entityType, Action action, Long petStoreId, Long entityId) {
+		eventPublisher.publishEvent(new PetStoreChangedEvent(entityType, action, petStoreId, entityId));
+	}
+
+	/*
+	 * Fetches many pet stores in one round trip. Without expand, pet stores found
+	 * in the cache (if there is one) are not loaded again. The rest are loaded
+	 * with a single IN query per shard, and only the requested collections are
+	 * batch fetched by Hibernate. The result keeps the requested order, and
+	 * unknown IDs are returned in missingIds.
+	 */
+	public PetStoreMultiGetData retrievePetStoresByIds(Collection<Long> petStoreIds, Collection<String> expand) {
+		Set<Long> ids = new LinkedHashSet<>(petStoreIds);
+		ids.remove(null);
+
+		if (ids.size() > MAX_MULTI_GET_IDS) {
+			throw new IllegalStateException(
+					"At most " + MAX_MULTI_GET_IDS + " pet stores can be retrieved at once. Requested " + ids.size());
+		}
+
+		Set<String> expanded = new LinkedHashSet<>();
+
+		for (String item : Objects.requireNonNullElse(expand, List.<String>of())) {
+			if (!item.trim().equals(EXPAND_CUSTOMERS) && !item.trim().equals(EXPAND_EMPLOYEES)) {
+				throw new IllegalStateException("Unknown expand value: " + item);
+			}
+
+			expanded.add(item.trim());
+		}
+
+		boolean withCustomers = expanded.contains(EXPAND_CUSTOMERS);
+		boolean withEmployees = expanded.contains(EXPAND_EMPLOYEES);
+
+		// The cache only holds summaries, so expanded requests always go to the database.
+		Cache cache = withCustomers || withEmployees ? null : findPetStoreCache();
+		Map<Long, PetStoreData> found = new HashMap<>();
+		Map<Integer, List<Long>> idsToLoadByShard = new HashMap<>();
+
+		for (Long id : ids) {
+			PetStoreData cached = Objects.isNull(cache) ? null : cache.get(id, PetStoreData.class);
+			OptionalInt shard = shardRouter.findShard(id);
+
+			if (Objects.nonNull(cached)) {
+				found.put(id, cached);
+			} else if (shard.isPresent()) {
+				idsToLoadByShard.computeIfAbsent(shard.getAsInt(), key -> new ArrayList<>()).add(id);
+			}
+		}
+
+		Cache summaryCache = findPetStoreCache();
+
+		for (List<PetStoreData> shardResult : shardRouter.callOnShards(idsToLoadByShard.keySet(),
+				shard -> transactionRunner.inReadOnlyTransaction(() -> petStoreDao
+						.findAllById(idsToLoadByShard.get(shard)).stream()
+						.map(petStore -> new PetStoreData(petStore, withCustomers, withEmployees)).toList()))) {
+			for (PetStoreData petStoreData : shardResult) {
+				if (Objects.nonNull(summaryCache)) {
+					summaryCache.put(petStoreData.getPetStoreId(), new PetStoreData(petStoreData, false, false));
+				}
+
+				found.put(petStoreData.getPetStoreId(), petStoreData);
+			}
+		}
+
+		PetStoreMultiGetData result = new PetStoreMultiGetData();
+
+		for (Long id : ids) {
+			PetStoreData petStoreData = found.get(id);
+
+			if (Objects.isNull(petStoreData)) {
+				result.getMissingIds().add(id);
+			} else {
+				// Copy so a cached object is never handed out.
+				result.getPetStores().add(new PetStoreData(petStoreData, withCustomers, withEmployees));
+			}
+		}
+
+		return result;
+	}
+
+	/*
+	 * Changes only the fields present in the request body; a field sent as null is
+	 * cleared. Unlike savePetStore, the pet store is not read and merged first:
+	 * the update is sent straight to the database and only touches the columns
+	 * that were sent. An empty body changes nothing but still checks that the
+	 * row exists.
+	 *
+	 * The response is the whole row, and an UPDATE returns none of it (MySQL has
+	 * no RETURNING clause), so the columns that weren't sent are read back by
+	 * primary key in the same transaction. The same goes for patchEmployee and
+	 * patchCustomer, where the scoped UPDATE has already checked that the row
+	 * belongs to the pet store.
+	 */
+	public PetStoreData patchPetStore(Long petStoreId, Map<String, Object> changes) {
+		return inTransactionOnShardOf(petStoreId, () -> {
+			Set<Long> updatedIds = entityPatchDao.patch(PetStore.class, Map.of(petStoreId, withZipLocation(changes)),
+					null);
+
+			if (!updatedIds.contains(petStoreId)) {
+				throw new NoSuchElementException("Pet store with ID=" + petStoreId + " does not exist.");
+			}
+
+			if (!changes.isEmpty()) {
+				publishChange(EntityType.PET_STORE, Action.SAVED, petStoreId, petStoreId);
+			}
+
+			return new PetStoreData(findPetStoreById(petStoreId), false, false);
+		});
+	}
+
+	public PetStoreEmployee patchEmployee(Long petStoreId, Long employeeId, Map<String, Object> changes) {
+		return inTransactionOnShardOf(petStoreId, () -> {
+			Set<Long> updatedIds = entityPatchDao.patch(Employee.class, Map.of(employeeId, changes),
+					new Scope(EMPLOYEE_SCOPE, petStoreId));
+
+			if (!updatedIds.contains(employeeId)) {
+				throw new NoSuchElementException(
+						"Employee with ID=" + employeeId + " does not exist at the pet store with ID=" + petStoreId);
+			}
+
+			if (!changes.isEmpty()) {
+				publishChange(EntityType.EMPLOYEE, Action.SAVED, petStoreId, employeeId);
+			}
+
+			return new PetStoreEmployee(findEmployeeById(petStoreId, employeeId));
+		});
+	}
+
+	public PetStoreCustomer patchCustomer(Long petStoreId, Long customerId, Map<String, Object> changes) {
+		return inTransactionOnShardOf(petStoreId, () -> {
+			Set<Long> updatedIds = entityPatchDao.patch(Customer.class, Map.of(customerId, changes),
+					new Scope(CUSTOMER_SCOPE, petStoreId));
+
+			if (!updatedIds.contains(customerId)) {
+				throw new NoSuchElementException("Customer with ID=" + customerId
+						+ " is not a member of the pet store with ID=" + petStoreId);
+			}
+
+			if (!changes.isEmpty()) {
+				publishChange(EntityType.CUSTOMER, Action.SAVED, petStoreId, customerId);
+				publishCustomerChange(customerId, changes);
+			}
+
+			return new PetStoreCustomer(customerDao.findById(customerId)
+					.orElseThrow(() -> new NoSuchElementException("Customer with ID=" + customerId + " was not found.")));
+		});
+	}
+
+	/*
+	 * Patches many pet stores in one request. Each item holds a petStoreId and the
+	 * fields to change. The updates are grouped by shard and by the set of
+	 * columns they change, and each group is sent as one JDBC batch.
+	 */
+	public PatchResultData patchPetStores(List<Map<String, Object>> patches) {
+		Map<Long, Map<String, Object>> patchesById = toPatchesById(patches, "petStoreId");
+		Map<Integer, Map<Long, Map<String, Object>>> patchesByShard = new HashMap<>();
+
+		for (Map.Entry<Long, Map<String, Object>> patch : patchesById.entrySet()) {
+			shardRouter.findShard(patch.getKey()).ifPresent(shard -> patchesByShard
+					.computeIfAbsent(shard, key -> new HashMap<>())
+					.put(patch.getKey(), withZipLocation(patch.getValue())));
+		}
+
+		Set<Long> updatedIds = new HashSet<>();
+
+		for (Set<Long> shardUpdatedIds : shardRouter.callOnShards(patchesByShard.keySet(),
+				shard -> transactionRunner.inTransaction(() -> {
+					Map<Long, Map<String, Object>> shardPatches = patchesByShard.get(shard);
+					Set<Long> ids = entityPatchDao.patch(PetStore.class, shardPatches, null);
+					ids.stream().filter(id -> !shardPatches.get(id).isEmpty())
+							.forEach(id -> publishChange(EntityType.PET_STORE, Action.SAVED, id, id));
+					return ids;
+				}))) {
+			updatedIds.addAll(shardUpdatedIds);
+		}
+
+		return toPatchResult(patchesById, updatedIds);
+	}
+
+	public PatchResultData patchEmployees(Long petStoreId, List<Map<String, Object>> patches) {
+		return inTransactionOnShardOf(petStoreId, () -> {
+			verifyPetStoreExists(petStoreId);
+
+			Map<Long, Map<String, Object>> patchesById = toPatchesById(patches, "employeeId");
+			Set<Long> updatedIds = entityPatchDao.patch(Employee.class, patchesById,
+					new Scope(EMPLOYEE_SCOPE, petStoreId));
+
+			updatedIds.stream().filter(id -> !patchesById.get(id).isEmpty())
+					.forEach(id -> publishChange(EntityType.EMPLOYEE, Action.SAVED, petStoreId, id));
+			return toPatchResult(patchesById, updatedIds);
+		});
+	}
+
+	public PatchResultData patchCustomers(Long petStoreId, List<Map<String, Object>> patches) {
+		return inTransactionOnShardOf(petStoreId, () -> {
+			verifyPetStoreExists(petStoreId);
+
+			Map<Long, Map<String, Object>> patchesById = toPatchesById(patches, "customerId");
+			Set<Long> updatedIds = entityPatchDao.patch(Customer.class, patchesById,
+					new Scope(CUSTOMER_SCOPE, petStoreId));
+
+			updatedIds.stream().filter(id -> !patchesById.get(id).isEmpty()).forEach(id -> {
+				publishChange(EntityType.CUSTOMER, Action.SAVED, petStoreId, id);
+				publishCustomerChange(id, patchesById.get(id));
+			});
+			return toPatchResult(patchesById, updatedIds);
+		});
+	}
+
+	/*
+	 * Splits each bulk PATCH item into its ID and the fields to change. Items for
+	 * the same ID are combined.
+	 */
+	private Map<Long, Map<String, Object>> toPatchesById(List<Map<String, Object>> patches, String idField) {
+		if (patches.size() > MAX_BULK_PATCH_SIZE) {
+			throw new IllegalStateException(
+					"At most " + MAX_BULK_PATCH_SIZE + " rows can be patched at once. Requested " + patches.size());
+		}
+
+		Map<Long, Map<String, Object>> patchesById = new LinkedHashMap<>();
+
+		for (Map<String, Object> patch : patches) {
+			if (!(patch.get(idField) instanceof Number id)) {
+				throw new IllegalStateException("Every item must have a numeric " + idField);
+			}
+
+			Map<String, Object> changes = new HashMap<>(patch);
+			changes.remove(idField);
+
+			patchesById.computeIfAbsent(id.longValue(), key -> new HashMap<>()).putAll(changes);
+		}
+
+		return patchesById;
+	}
+
+	/*
+	 * A pet store patched with a new zip code is moved to the center of that zip
+	 * code, unless the patch sets its location as well. Locations sent in a patch
+	 * must be valid coordinates.
+	 */
+	private Map<String, Object> withZipLocation(Map<String, Object> changes) {
+		Object latitude = changes.get("petStoreLatitude");
+		Object longitude = changes.get("petStoreLongitude");
+
+		if ((latitude instanceof Number lat && Math.abs(lat.doubleValue()) > 90)
+				|| (longitude instanceof Number lon && Math.abs(lon.doubleValue()) > 180)) {
+			throw new IllegalStateException("Invalid coordinates " + latitude + ", " + longitude
+					+ ". Latitude must be between -90 and 90 and longitude between -180 and 180.");
+		}
+
+		if (!changes.containsKey("petStoreZip") || changes.containsKey("petStoreLatitude")
+				|| changes.containsKey("petStoreLongitude")) {
+			return changes;
+		}
+
+		GeoPoint location = zipCentroids.find(Objects.toString(changes.get("petStoreZip"), null)).orElse(null);
+		Map<String, Object> result = new HashMap<>(changes);
+
+		result.put("petStoreLatitude", Objects.isNull(location) ? null : location.latitude());
+		result.put("petStoreLongitude", Objects.isNull(location) ? null : location.longitude());
+		return result;
+	}
+
+	private PatchResultData toPatchResult(Map<Long, Map<String, Object>> patchesById, Set<Long> updatedIds) {
+		PatchResultData result = new PatchResultData();
+
+		for (Long id : patchesById.keySet()) {
+			if (updatedIds.contains(id)) {
+				result.getUpdatedIds().add(id);
+			} else {
+				result.getMissingIds().add(id);
+			}
+		}
+
+		return result;
+	}
+
+	private Cache findPetStoreCache() {
+		CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+		return Objects.isNull(cacheManager) ? null : cacheManager.getCache(PET_STORE_CACHE);
+	}
+
+	/*
+	 * The cache holds pet store summaries only, so employee and customer writes
+	 * leave it alone. A saved, patched or deleted pet store is evicted once the
+	 * write has committed, so the next multi-get reads the committed row instead
+	 * of the one cached before the write.
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void evictCachedPetStore(PetStoreChangedEvent event) {
+		Cache cache = findPetStoreCache();
+
+		if (event.entityType() == EntityType.PET_STORE && Objects.nonNull(cache)) {
+			cache.evict(event.petStoreId());
+		}
+	}
+
+	/*
+	 * Returns one page of employees for the pet store. The optional job title and
+	 * last name prefix filters are applied in the query, not in memory.
+	 */
+	public KeysetPage<PetStoreEmployee> retrieveEmployees(Long petStoreId, Long afterId, Integer pageSize,
+			String jobTitle, String lastNamePrefix) {
+		return inReadOnlyTransactionOnShardOf(petStoreId, () -> {
+			verifyPetStoreExists(petStoreId);
+			int limit = toPageSize(pageSize);
+
+			List<Employee> employees = employeeDao.findPageByPetStoreId(petStoreId, toAfterId(afterId),
+					blankToNull(jobTitle), toLikePrefix(lastNamePrefix), Limit.of(limit));
+
+			return toKeysetPage(employees, limit, PetStoreEmployee::new, Employee::getEmployeeId);
+		});
+	}
+
+	/*
+	 * Returns one page of customers for the pet store, optionally filtered by a
+	 * last name prefix.
+	 */
+	public KeysetPage<PetStoreCustomer> retrieveCustomers(Long petStoreId, Long afterId, Integer pageSize,
+			String lastNamePrefix) {
+		return inReadOnlyTransactionOnShardOf(petStoreId, () -> {
+			verifyPetStoreExists(petStoreId);
+			int limit = toPageSize(pageSize);
+
+			List<Customer> customers = customerDao.findPageByPetStoreId(petStoreId, toAfterId(afterId),
+					toLikePrefix(lastNamePrefix), Limit.of(limit));
+
+			return toKeysetPage(customers, limit, PetStoreCustomer::new, Customer::getCustomerId);
+		});
+	}
+
+	private void verifyPetStoreExists(Long petStoreId) {
+		if (!petStoreDao.existsById(petStoreId)) {
+			throw new NoSuchElementException("Pet store with ID=" + petStoreId + " does not exist.");
+		}
+	}
+
+	private int toPageSize(Integer pageSize) {
+		if (Objects.isNull(pageSize) || pageSize < 1) {
+			return DEFAULT_PAGE_SIZE;
+		}
+
+		return Math.min(pageSize, MAX_PAGE_SIZE);
+	}
+
+	private Long toAfterId(Long afterId) {
+		return Objects.isNull(afterId) ? 0L : afterId;
+	}
+
+	private String blankToNull(String value) {
+		return Objects.isNull(value) || value.isBlank() ? null : value;
+	}
+
+	/*
+	 * Escapes the LIKE wildcards in a prefix filter, so that a prefix such as "%"
+	 * or "_" only matches names that start with that character.
+	 */
+	private String toLikePrefix(String value) {
+		String prefix = blankToNull(value);
+		return Objects.isNull(prefix) ? null : prefix.replaceAll("([\\\\%_])", "\\\\$1");
+	}
+
+	/*
+	 * Converts a page of entities to DTOs. A full page means there may be more
+	 * rows, so the ID of the last row becomes the cursor for the next page.
+	 */
+	private <E, D> KeysetPage<D> toKeysetPage(List<E> entities, int limit, Function<E, D> toDto,
+			Function<E, Long> toId) {
+		List<D> items = entities.stream().map(toDto).toList();
+		Long nextAfterId = null;
+
+		if (entities.size() == limit) {
+			nextAfterId = toId.apply(entities.get(entities.size() - 1));
+		}
+
+		return new KeysetPage<>(items, nextAfterId);
 	}
 
 	
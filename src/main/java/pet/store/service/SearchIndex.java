@@ -0,0 +1,274 @@
+package pet.store.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import pet.store.controller.model.ChangeEvent.EntityType;
+import pet.store.controller.model.SearchResultData;
+
+/*
+ * An in-memory inverted index over customer and employee names, customer
+ * emails and employee job titles. Every word is indexed in lower case, and
+ * a query word matches an indexed word that equals it or starts with it.
+ * Searches take a read lock and never touch the database.
+ */
+public class SearchIndex {
+
+	private static final int NAME_WEIGHT = 3;
+	private static final int DETAIL_WEIGHT = 1;
+	private static final int EXACT_MATCH_FACTOR = 2;
+
+	private record DocKey(EntityType entityType, long id) {
+	}
+
+	private record Doc(DocKey key, String firstName, String lastName, String detail, Set<Long> petStoreIds,
+			Map<String, Integer> tokenWeights) {
+	}
+
+	private final Map<DocKey, Doc> docs = new HashMap<>();
+	private final NavigableMap<String, Set<DocKey>> postings = new TreeMap<>();
+	private final Map<Long, Set<DocKey>> docsByPetStore = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/*
+	 * Adds or replaces a customer or employee. The detail is the customer's email
+	 * or the employee's job title.
+	 */
+	public void put(EntityType entityType, long id, String firstName, String lastName, String detail,
+			Set<Long> petStoreIds) {
+		put(entityType, id, firstName, lastName, detail, petStoreIds, false);
+	}
+
+	/*
+	 * Like put, but keeps the pet stores already indexed for the document. A
+	 * customer copied to several shards is loaded once per shard, and each shard
+	 * knows only the memberships of its own pet stores.
+	 */
+	public void merge(EntityType entityType, long id, String firstName, String lastName, String detail,
+			Set<Long> petStoreIds) {
+		put(entityType, id, firstName, lastName, detail, petStoreIds, true);
+	}
+
+	private void put(EntityType entityType, long id, String firstName, String lastName, String detail,
+			Set<Long> petStoreIds, boolean keepPetStores) {
+		Map<String, Integer> tokenWeights = new HashMap<>();
+
+		addTokens(tokenWeights, firstName, NAME_WEIGHT);
+		addTokens(tokenWeights, lastName, NAME_WEIGHT);
+		addTokens(tokenWeights, detail, DETAIL_WEIGHT);
+
+		DocKey key = new DocKey(entityType, id);
+
+		lock.writeLock().lock();
+
+		try {
+			Set<Long> allPetStoreIds = new HashSet<>(petStoreIds);
+			Doc oldDoc = docs.get(key);
+
+			if (keepPetStores && Objects.nonNull(oldDoc)) {
+				allPetStoreIds.addAll(oldDoc.petStoreIds());
+			}
+
+			Doc doc = new Doc(key, firstName, lastName, detail, Set.copyOf(allPetStoreIds), tokenWeights);
+
+			removeDoc(key);
+			docs.put(key, doc);
+
+			for (String token : tokenWeights.keySet()) {
+				postings.computeIfAbsent(token, t -> new HashSet<>()).add(key);
+			}
+
+			for (Long petStoreId : doc.petStoreIds()) {
+				docsByPetStore.computeIfAbsent(petStoreId, p -> new HashSet<>()).add(key);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(EntityType entityType, long id) {
+		lock.writeLock().lock();
+
+		try {
+			removeDoc(new DocKey(entityType, id));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/*
+	 * Removes a deleted pet store: its employees are dropped, and it is taken off
+	 * the store list of its customers.
+	 */
+	public void removePetStore(long petStoreId) {
+		lock.writeLock().lock();
+
+		try {
+			Set<DocKey> keys = docsByPetStore.remove(petStoreId);
+
+			for (DocKey key : Objects.requireNonNullElse(keys, Set.<DocKey>of())) {
+				Doc doc = docs.get(key);
+
+				if (key.entityType() == EntityType.EMPLOYEE) {
+					removeDoc(key);
+				} else if (Objects.nonNull(doc)) {
+					Set<Long> petStoreIds = new HashSet<>(doc.petStoreIds());
+					petStoreIds.remove(petStoreId);
+					docs.put(key, new Doc(key, doc.firstName(), doc.lastName(), doc.detail(), Set.copyOf(petStoreIds),
+							doc.tokenWeights()));
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+
+		try {
+			docs.clear();
+			postings.clear();
+			docsByPetStore.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/*
+	 * Returns the best matches for the query. Every word of the query must match
+	 * a word of the result. Whole word matches score higher than prefix matches,
+	 * and name matches higher than email or job title matches. The pet store and
+	 * entity type filters are optional.
+	 */
+	public List<SearchResultData> search(String query, Long petStoreId, EntityType entityType, int limit) {
+		Set<String> queryTokens = tokenize(query);
+
+		if (queryTokens.isEmpty()) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+
+		try {
+			Set<DocKey> storeDocs = Objects.isNull(petStoreId) ? null
+					: docsByPetStore.getOrDefault(petStoreId, Set.of());
+			Map<DocKey, Integer> scores = null;
+
+			for (String queryToken : queryTokens) {
+				Map<DocKey, Integer> tokenScores = new HashMap<>();
+
+				for (Map.Entry<String, Set<DocKey>> posting : postings
+						.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).entrySet()) {
+					int factor = posting.getKey().equals(queryToken) ? EXACT_MATCH_FACTOR : 1;
+
+					for (DocKey key : posting.getValue()) {
+						if ((Objects.isNull(entityType) || key.entityType() == entityType)
+								&& (Objects.isNull(storeDocs) || storeDocs.contains(key))) {
+							int score = docs.get(key).tokenWeights().get(posting.getKey()) * factor;
+							tokenScores.merge(key, score, Math::max);
+						}
+					}
+				}
+
+				if (Objects.isNull(scores)) {
+					scores = tokenScores;
+				} else {
+					scores.keySet().retainAll(tokenScores.keySet());
+					scores.replaceAll((key, score) -> score + tokenScores.get(key));
+				}
+
+				if (scores.isEmpty()) {
+					return List.of();
+				}
+			}
+
+			return scores.entrySet().stream()
+					.sorted(Map.Entry.<DocKey, Integer>comparingByValue().reversed()
+							.thenComparing(entry -> entry.getKey().id()))
+					.limit(limit).map(entry -> toResult(docs.get(entry.getKey()), entry.getValue())).toList();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+
+		try {
+			return docs.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void removeDoc(DocKey key) {
+		Doc doc = docs.remove(key);
+
+		if (Objects.isNull(doc)) {
+			return;
+		}
+
+		for (String token : doc.tokenWeights().keySet()) {
+			Set<DocKey> keys = postings.get(token);
+
+			if (Objects.nonNull(keys) && keys.remove(key) && keys.isEmpty()) {
+				postings.remove(token);
+			}
+		}
+
+		for (Long petStoreId : doc.petStoreIds()) {
+			Set<DocKey> keys = docsByPetStore.get(petStoreId);
+
+			if (Objects.nonNull(keys) && keys.remove(key) && keys.isEmpty()) {
+				docsByPetStore.remove(petStoreId);
+			}
+		}
+	}
+
+	private SearchResultData toResult(Doc doc, int score) {
+		List<Long> petStoreIds = new ArrayList<>(doc.petStoreIds());
+		petStoreIds.sort(Comparator.naturalOrder());
+
+		return new SearchResultData(doc.key().entityType(), doc.key().id(), doc.firstName(), doc.lastName(),
+				doc.detail(), new LinkedHashSet<>(petStoreIds), score);
+	}
+
+	private static void addTokens(Map<String, Integer> tokenWeights, String text, int weight) {
+		for (String token : tokenize(text)) {
+			tokenWeights.merge(token, weight, Math::max);
+		}
+	}
+
+	/*
+	 * Splits text into lower case words. Punctuation separates words, so an email
+	 * address becomes its user name parts and domain parts.
+	 */
+	private static Set<String> tokenize(String text) {
+		Set<String> tokens = new LinkedHashSet<>();
+
+		if (Objects.isNull(text)) {
+			return tokens;
+		}
+
+		for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+			if (!token.isEmpty()) {
+				tokens.add(token);
+			}
+		}
+
+		return tokens;
+	}
+}
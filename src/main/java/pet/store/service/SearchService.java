@@ -0,0 +1,163 @@
+package pet.store.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import pet.store.controller.model.ChangeEvent.Action;
+import pet.store.controller.model.ChangeEvent.EntityType;
+import pet.store.controller.model.SearchResultData;
+import pet.store.dao.CustomerDao;
+import pet.store.dao.EmployeeDao;
+import pet.store.entity.Customer;
+import pet.store.entity.Employee;
+import pet.store.entity.PetStore;
+
+/*
+ * Keeps the customer and employee search index in step with the database.
+ * The index is built at startup, loading every shard's customers and
+ * employees in parallel, and afterwards each committed save or delete from
+ * PetStoreService re-reads just the row that changed. A customer copied to
+ * several shards is one document, with the pet stores of every copy.
+ */
+@Service
+public class SearchService extends AbstractIndexService {
+
+	private static final int DEFAULT_LIMIT = 20;
+	private static final int MAX_LIMIT = 100;
+	private static final int REBUILD_PAGE_SIZE = 1000;
+
+	@Autowired
+	private EmployeeDao employeeDao;
+
+	@Autowired
+	private CustomerDao customerDao;
+
+	private final SearchIndex searchIndex = new SearchIndex();
+
+	public List<SearchResultData> search(String query, Long petStoreId, EntityType entityType, Integer limit) {
+		int maxResults = Objects.isNull(limit) || limit < 1 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+		return searchIndex.search(query, petStoreId, entityType, maxResults);
+	}
+
+	@Override
+	protected void clearIndex() {
+		searchIndex.clear();
+	}
+
+	@Override
+	protected List<Runnable> getShardLoads() {
+		return List.of(this::loadAllEmployees, this::loadAllCustomers);
+	}
+
+	@Override
+	protected String describeIndex() {
+		return searchIndex.size() + " customers and employees";
+	}
+
+	@Override
+	protected void applyChange(PetStoreChangedEvent event) {
+		if (event.entityType() == EntityType.PET_STORE) {
+			if (event.action() == Action.DELETED) {
+				searchIndex.removePetStore(event.petStoreId());
+			}
+
+			return;
+		}
+
+		if (event.entityType() == EntityType.CUSTOMER) {
+			applyCustomerChange(event);
+			return;
+		}
+
+		readOnShard(shardRouter.shardFor(event.petStoreId()), () -> employeeDao.findById(event.entityId())
+				.ifPresentOrElse(this::indexEmployee, () -> searchIndex.remove(EntityType.EMPLOYEE, event.entityId())));
+	}
+
+	/*
+	 * Reads the customer's copy on every shard to collect all of its pet stores.
+	 * The names and email come from the shard the change was made on, since the
+	 * other copies may not have been brought up to date yet.
+	 */
+	private void applyCustomerChange(PetStoreChangedEvent event) {
+		int changedShard = shardRouter.shardFor(event.petStoreId());
+		Set<Long> petStoreIds = new HashSet<>();
+		AtomicReference<Customer> changedCustomer = new AtomicReference<>();
+
+		for (int shard : shardRouter.getShards()) {
+			readOnShard(shard, () -> customerDao.findById(event.entityId()).ifPresent(customer -> {
+				petStoreIds.addAll(toPetStoreIds(customer));
+
+				if (shard == changedShard || Objects.isNull(changedCustomer.get())) {
+					changedCustomer.set(customer);
+				}
+			}));
+		}
+
+		Customer customer = changedCustomer.get();
+
+		if (Objects.isNull(customer)) {
+			searchIndex.remove(EntityType.CUSTOMER, event.entityId());
+		} else {
+			searchIndex.put(EntityType.CUSTOMER, customer.getCustomerId(), customer.getCustomerFirstName(),
+					customer.getCustomerLastName(), customer.getCustomerEmail(), petStoreIds);
+		}
+	}
+
+	private void loadAllEmployees() {
+		List<Employee> employees;
+		Long afterId = 0L;
+
+		do {
+			employees = employeeDao.findByEmployeeIdGreaterThanOrderByEmployeeId(afterId,
+					Limit.of(REBUILD_PAGE_SIZE));
+
+			for (Employee employee : employees) {
+				indexEmployee(employee);
+				afterId = employee.getEmployeeId();
+			}
+		} while (employees.size() == REBUILD_PAGE_SIZE);
+	}
+
+	private void loadAllCustomers() {
+		List<Customer> customers;
+		Long afterId = 0L;
+
+		do {
+			customers = customerDao.findByCustomerIdGreaterThanOrderByCustomerId(afterId,
+					Limit.of(REBUILD_PAGE_SIZE));
+
+			for (Customer customer : customers) {
+				indexCustomer(customer);
+				afterId = customer.getCustomerId();
+			}
+		} while (customers.size() == REBUILD_PAGE_SIZE);
+	}
+
+	private void indexEmployee(Employee employee) {
+		searchIndex.put(EntityType.EMPLOYEE, employee.getEmployeeId(), employee.getEmployeeFirstName(),
+				employee.getEmployeeLastName(), employee.getEmployeeJobTitle(),
+				Set.of(employee.getPetStore().getPetStoreId()));
+	}
+
+	private void indexCustomer(Customer customer) {
+		searchIndex.merge(EntityType.CUSTOMER, customer.getCustomerId(), customer.getCustomerFirstName(),
+				customer.getCustomerLastName(), customer.getCustomerEmail(), toPetStoreIds(customer));
+	}
+
+	private Set<Long> toPetStoreIds(Customer customer) {
+		Set<Long> petStoreIds = new HashSet<>();
+
+		for (PetStore petStore : customer.getPetStores()) {
+			petStoreIds.add(petStore.getPetStoreId());
+		}
+
+		return petStoreIds;
+	}
+}
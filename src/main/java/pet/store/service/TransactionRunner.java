@@ -0,0 +1,34 @@
+package pet.store.service;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * Runs work in a transaction where @Transactional can't be used: when the shard
+ * must be selected before the transaction starts, and on task executor threads.
+ */
+@Component
+public class TransactionRunner {
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	public <T> T inTransaction(Supplier<T> work) {
+		return execute(false, work);
+	}
+
+	public <T> T inReadOnlyTransaction(Supplier<T> work) {
+		return execute(true, work);
+	}
+
+	private <T> T execute(boolean readOnly, Supplier<T> work) {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(readOnly);
+
+		return transactionTemplate.execute(status -> work.get());
+	}
+}
@@ -0,0 +1,131 @@
+package pet.store.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * The approximate center of each zip code, loaded once from a file with zip,
+ * latitude and longitude columns. It is used to place pet stores on the map
+ * from their zip code, and to find the stores nearest to a customer's zip
+ * code, without calling an outside geocoding service. The bundled CSV file is
+ * only a sample; a zip code missing from it has no location, and the nearest
+ * store lookup reports such pet stores as unlocated.
+ *
+ * For nationwide coverage, point pet-store.geo.zip-centroids at the Census
+ * Bureau's ZCTA gazetteer file as it is published: the tab separated table is
+ * recognized by its GEOID, INTPTLAT and INTPTLONG header, and a .zip or .gz
+ * download is read without unpacking it first.
+ */
+@Component
+@Slf4j
+public class ZipCentroids {
+
+	private static final String GAZETTEER_ZIP = "GEOID";
+	private static final String GAZETTEER_LATITUDE = "INTPTLAT";
+	private static final String GAZETTEER_LONGITUDE = "INTPTLONG";
+
+	private final Map<String, GeoPoint> centroids = new HashMap<>();
+
+	public ZipCentroids(@Value("${pet-store.geo.zip-centroids:classpath:geo/zip-centroids.csv}") Resource resource) {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(open(resource), StandardCharsets.UTF_8))) {
+			String line;
+
+			// The bundled CSV file's column order, unless a gazetteer header says otherwise.
+			int zipColumn = 0;
+			int latitudeColumn = 1;
+			int longitudeColumn = 2;
+
+			while (Objects.nonNull(line = reader.readLine())) {
+				List<String> fields = Arrays.stream(line.split(line.indexOf('\t') >= 0 ? "\t" : ",")).map(String::trim)
+						.toList();
+
+				if (fields.contains(GAZETTEER_ZIP)) {
+					zipColumn = fields.indexOf(GAZETTEER_ZIP);
+					latitudeColumn = fields.indexOf(GAZETTEER_LATITUDE);
+					longitudeColumn = fields.indexOf(GAZETTEER_LONGITUDE);
+
+					if (latitudeColumn < 0 || longitudeColumn < 0) {
+						throw new IllegalStateException("The gazetteer header in " + resource + " has no "
+								+ GAZETTEER_LATITUDE + " and " + GAZETTEER_LONGITUDE + " columns");
+					}
+
+					continue;
+				}
+
+				int lastColumn = Math.max(zipColumn, Math.max(latitudeColumn, longitudeColumn));
+
+				if (line.startsWith("#") || fields.size() <= lastColumn || !isZip(fields.get(zipColumn))) {
+					continue;
+				}
+
+				centroids.put(fields.get(zipColumn), new GeoPoint(Double.parseDouble(fields.get(latitudeColumn)),
+						Double.parseDouble(fields.get(longitudeColumn))));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read zip code centroids from " + resource, e);
+		}
+
+		log.info("Loaded {} zip code centroids", centroids.size());
+	}
+
+	/*
+	 * Looks up a five digit zip code. A ZIP+4 code such as 84101-1234 is looked
+	 * up by its first five digits.
+	 */
+	public Optional<GeoPoint> find(String zip) {
+		if (Objects.isNull(zip)) {
+			return Optional.empty();
+		}
+
+		String trimmed = zip.trim();
+		return Optional.ofNullable(centroids.get(trimmed.length() > 5 ? trimmed.substring(0, 5) : trimmed));
+	}
+
+	/*
+	 * The Census Bureau publishes the gazetteer as a .zip holding one text file.
+	 */
+	private static InputStream open(Resource resource) throws IOException {
+		String filename = Objects.requireNonNullElse(resource.getFilename(), "");
+		InputStream input = resource.getInputStream();
+
+		if (filename.endsWith(".gz")) {
+			return new GZIPInputStream(input);
+		}
+
+		if (filename.endsWith(".zip")) {
+			ZipInputStream zip = new ZipInputStream(input);
+
+			if (Objects.isNull(zip.getNextEntry())) {
+				zip.close();
+				throw new IOException(filename + " is empty");
+			}
+
+			return zip;
+		}
+
+		return input;
+	}
+
+	private boolean isZip(String value) {
+		return value.length() == 5 && value.chars().allMatch(Character::isDigit);
+	}
+}
@@ -0,0 +1,128 @@
+package pet.store.controller.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.method.HandlerMethod;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import pet.store.controller.error.GlobalErrorHandler;
+
+class ConcurrencyLimitInterceptorTest {
+
+	@RestController
+	static class TestController {
+
+		private DeferredResult<String> pending;
+
+		@GetMapping("/sync")
+		public String sync() {
+			return "ok";
+		}
+
+		@GetMapping("/other")
+		public String other() {
+			return "ok";
+		}
+
+		@GetMapping("/async")
+		public DeferredResult<String> async() {
+			pending = new DeferredResult<>();
+			return pending;
+		}
+	}
+
+	private final TestController controller = new TestController();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ConcurrencyLimitInterceptor interceptor;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		// Each endpoint admits one request at a time and the server admits two.
+		ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+		properties.setInitialLimit(1);
+		properties.setMinLimit(1);
+		properties.setMaxLimit(1);
+		properties.setServerInitialLimit(2);
+		properties.setServerMaxLimit(2);
+
+		interceptor = new ConcurrencyLimitInterceptor(properties, meterRegistry);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).addInterceptors(interceptor)
+				.setControllerAdvice(new GlobalErrorHandler()).build();
+	}
+
+	@Test
+	void admittedRequestReleasesItsPermits() throws Exception {
+		mockMvc.perform(get("/sync")).andExpect(status().isOk());
+		mockMvc.perform(get("/sync")).andExpect(status().isOk());
+
+		assertThat(inFlight("TestController.sync")).isZero();
+		assertThat(inFlight("server")).isZero();
+	}
+
+	@Test
+	void endpointAtItsLimitIsRejectedWith429AndRetryAfter() throws Exception {
+		holdPermit("sync");
+
+		mockMvc.perform(get("/sync")).andExpect(status().isTooManyRequests())
+				.andExpect(header().string("Retry-After", "1"));
+
+		// The server permit taken before the endpoint rejected the request is given back.
+		assertThat(inFlight("server")).isEqualTo(1);
+	}
+
+	@Test
+	void serverAtItsLimitIsRejectedWith503AndRetryAfter() throws Exception {
+		holdPermit("sync");
+		holdPermit("other");
+
+		mockMvc.perform(get("/async")).andExpect(status().isServiceUnavailable())
+				.andExpect(header().string("Retry-After", "1"));
+	}
+
+	@Test
+	void asyncRequestReleasesItsPermitsWhenTheHandlerReturns() throws Exception {
+		MvcResult result = mockMvc.perform(get("/async")).andExpect(request().asyncStarted()).andReturn();
+
+		// The request is still waiting, but no longer counts against the limits.
+		assertThat(inFlight("TestController.async")).isZero();
+		assertThat(inFlight("server")).isZero();
+		DeferredResult<String> pending = controller.pending;
+		mockMvc.perform(get("/async")).andExpect(request().asyncStarted());
+
+		pending.setResult("done");
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+		assertThat(inFlight("TestController.async")).isZero();
+		assertThat(inFlight("server")).isZero();
+	}
+
+	/*
+	 * Admits a request to the handler method without completing it.
+	 */
+	private void holdPermit(String methodName) throws Exception {
+		HandlerMethod handlerMethod = new HandlerMethod(controller, methodName);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/" + methodName);
+
+		assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), handlerMethod)).isTrue();
+	}
+
+	private double inFlight(String endpoint) {
+		return meterRegistry.get("petstore.concurrency.inflight").tag("endpoint", endpoint).gauge().value();
+	}
+}
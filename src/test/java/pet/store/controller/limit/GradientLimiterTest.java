@@ -0,0 +1,108 @@
+package pet.store.controller.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class GradientLimiterTest {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	void limitGrowsUnderLoadWhileLatencyIsSteady() {
+		GradientLimiter limiter = new GradientLimiter(20, 2, 200);
+
+		fill(limiter);
+		sample(limiter, 50, FAST);
+
+		assertThat(limiter.getLimit()).isGreaterThan(20);
+	}
+
+	@Test
+	void limitShrinksWhenLatencyGoesUp() {
+		GradientLimiter limiter = new GradientLimiter(20, 2, 200);
+
+		fill(limiter);
+		sample(limiter, 50, FAST);
+		double limitBeforeSlowdown = limiter.getLimit();
+
+		sample(limiter, 50, SLOW);
+
+		assertThat(limiter.getLimit()).isLessThan(limitBeforeSlowdown);
+	}
+
+	@Test
+	void limitStaysWithinMinAndMax() {
+		GradientLimiter limiter = new GradientLimiter(20, 10, 30);
+
+		fill(limiter);
+		sample(limiter, 500, FAST);
+		assertThat(limiter.getLimit()).isEqualTo(30);
+
+		// A sudden, large slowdown, before the long term average catches up with it.
+		sample(limiter, 40, SLOW * 100);
+		assertThat(limiter.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void limitDoesNotGrowWhenLessThanHalfIsInUse() {
+		GradientLimiter limiter = new GradientLimiter(20, 2, 200);
+
+		// One request in flight at a time is well below half of the limit.
+		for (int i = 0; i < 100; i++) {
+			assertThat(limiter.tryAcquire(1.0)).isTrue();
+			limiter.release(FAST);
+		}
+
+		assertThat(limiter.getLimit()).isEqualTo(20);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void tryAcquireHonoursThePriorityShare() {
+		GradientLimiter limiter = new GradientLimiter(20, 2, 200);
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(limiter.tryAcquire(0.5)).isTrue();
+		}
+
+		assertThat(limiter.tryAcquire(0.5)).isFalse();
+		assertThat(limiter.tryAcquire(1.0)).isTrue();
+		assertThat(limiter.getInFlight()).isEqualTo(11);
+		assertThat(limiter.getRejected()).isEqualTo(1);
+	}
+
+	@Test
+	void retryAfterIsAtLeastOneSecond() {
+		GradientLimiter limiter = new GradientLimiter(20, 2, 200);
+
+		assertThat(limiter.getRetryAfterSeconds()).isEqualTo(1);
+
+		limiter.tryAcquire(1.0);
+		limiter.release(TimeUnit.MILLISECONDS.toNanos(2500));
+
+		assertThat(limiter.getRetryAfterSeconds()).isEqualTo(3);
+	}
+
+	/*
+	 * Admits requests until the limiter is full.
+	 */
+	private void fill(GradientLimiter limiter) {
+		while (limiter.tryAcquire(1.0)) {
+		}
+	}
+
+	/*
+	 * Completes requests with the given latency, admitting new ones to keep the
+	 * limiter as full as it allows.
+	 */
+	private void sample(GradientLimiter limiter, int count, long rttNanos) {
+		for (int i = 0; i < count; i++) {
+			limiter.release(rttNanos);
+			fill(limiter);
+		}
+	}
+}
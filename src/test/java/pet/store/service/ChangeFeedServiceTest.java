@@ -0,0 +1,89 @@
+package pet.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import pet.store.controller.model.ChangeEvent.Action;
+import pet.store.controller.model.ChangeEvent.EntityType;
+import pet.store.controller.model.ChangeFeedData;
+
+class ChangeFeedServiceTest {
+
+	private final ChangeLog changeLog = new ChangeLog(10);
+	private final ChangeFeedService changeFeedService = new ChangeFeedService();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(changeFeedService, "changeLog", changeLog);
+		ReflectionTestUtils.setField(changeFeedService, "taskExecutor", new SyncTaskExecutor());
+	}
+
+	@Test
+	void pollTimeoutIsKeptBetweenOneAndSixtySeconds() {
+		assertThat(timeoutOf(0L)).isEqualTo(1000L);
+		assertThat(timeoutOf(-5L)).isEqualTo(1000L);
+		assertThat(timeoutOf(5000L)).isEqualTo(5000L);
+		assertThat(timeoutOf(600_000L)).isEqualTo(60_000L);
+		assertThat(timeoutOf(null)).isEqualTo(30_000L);
+	}
+
+	private Object timeoutOf(Long timeoutMs) {
+		return ReflectionTestUtils.getField(changeFeedService.pollChanges(0L, timeoutMs), "timeoutValue");
+	}
+
+	@Test
+	void pollCompletesWhenAChangeIsAppended() {
+		DeferredResult<ChangeFeedData> result = changeFeedService.pollChanges(null, 5000L);
+
+		assertThat(result.hasResult()).isFalse();
+
+		changeLog.append(new PetStoreChangedEvent(EntityType.PET_STORE, Action.SAVED, 1L, 1L));
+
+		assertThat(result.hasResult()).isTrue();
+		assertThat(((ChangeFeedData) result.getResult()).getCursor()).isEqualTo(1);
+	}
+
+	@Test
+	void pollWithABacklogCompletesAtOnceAndIsNotRegistered() {
+		appendChanges(3);
+
+		DeferredResult<ChangeFeedData> result = changeFeedService.pollChanges(0L, 5000L);
+
+		assertThat(((ChangeFeedData) result.getResult()).getChanges()).hasSize(3);
+		assertThat(listeners()).isEmpty();
+	}
+
+	@Test
+	void streamHoldsAFullReplayAndDisconnectsWhenItFallsFurtherBehind() {
+		// Nothing is written to the client, so every change stays queued.
+		ReflectionTestUtils.setField(changeFeedService, "taskExecutor", (TaskExecutor) task -> {
+		});
+		appendChanges(12);
+
+		changeFeedService.streamChanges(0L);
+
+		assertThat(listeners()).hasSize(1);
+
+		appendChanges(1);
+
+		assertThat(listeners()).isEmpty();
+	}
+
+	private void appendChanges(int count) {
+		for (int i = 0; i < count; i++) {
+			changeLog.append(new PetStoreChangedEvent(EntityType.PET_STORE, Action.SAVED, 1L, 1L));
+		}
+	}
+
+	private List<?> listeners() {
+		return (List<?>) ReflectionTestUtils.getField(changeLog, "listeners");
+	}
+}
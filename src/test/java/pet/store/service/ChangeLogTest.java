@@ -0,0 +1,166 @@
+package pet.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import pet.store.controller.model.ChangeEvent;
+import pet.store.controller.model.ChangeEvent.Action;
+import pet.store.controller.model.ChangeEvent.EntityType;
+import pet.store.controller.model.ChangeFeedData;
+
+class ChangeLogTest {
+
+	@Test
+	void readSinceReturnsChangesAfterTheCursorInOrder() {
+		ChangeLog changeLog = new ChangeLog(10);
+		appendChanges(changeLog, 5);
+
+		ChangeFeedData changeFeedData = changeLog.readSince(2, 100);
+
+		assertThat(changeFeedData.isReset()).isFalse();
+		assertThat(changeFeedData.getCursor()).isEqualTo(5);
+		assertThat(changeFeedData.getChanges()).extracting(ChangeEvent::getCursor).containsExactly(3L, 4L, 5L);
+		assertThat(changeFeedData.getChanges()).extracting(ChangeEvent::getEntityId).containsExactly(3L, 4L, 5L);
+	}
+
+	@Test
+	void readSinceStopsAtMaxChanges() {
+		ChangeLog changeLog = new ChangeLog(10);
+		appendChanges(changeLog, 5);
+
+		ChangeFeedData changeFeedData = changeLog.readSince(0, 2);
+
+		assertThat(changeFeedData.getChanges()).extracting(ChangeEvent::getCursor).containsExactly(1L, 2L);
+		assertThat(changeFeedData.getCursor()).isEqualTo(2);
+	}
+
+	@Test
+	void readSinceAtTheLatestCursorIsEmpty() {
+		ChangeLog changeLog = new ChangeLog(10);
+		appendChanges(changeLog, 3);
+
+		ChangeFeedData changeFeedData = changeLog.readSince(3, 100);
+
+		assertThat(changeFeedData.getChanges()).isEmpty();
+		assertThat(changeFeedData.getCursor()).isEqualTo(3);
+		assertThat(changeFeedData.isReset()).isFalse();
+	}
+
+	@Test
+	void ringBufferKeepsTheNewestChangesAfterWrappingAround() {
+		ChangeLog changeLog = new ChangeLog(4);
+		appendChanges(changeLog, 10);
+
+		ChangeFeedData changeFeedData = changeLog.readSince(6, 100);
+
+		assertThat(changeFeedData.isReset()).isFalse();
+		assertThat(changeFeedData.getChanges()).extracting(ChangeEvent::getCursor).containsExactly(7L, 8L, 9L,
+				10L);
+	}
+
+	@Test
+	void cursorOlderThanTheBufferIsAReset() {
+		ChangeLog changeLog = new ChangeLog(4);
+		appendChanges(changeLog, 10);
+
+		ChangeFeedData changeFeedData = changeLog.readSince(2, 100);
+
+		assertThat(changeFeedData.isReset()).isTrue();
+		assertThat(changeFeedData.getChanges()).extracting(ChangeEvent::getCursor).containsExactly(7L, 8L, 9L,
+				10L);
+		assertThat(changeFeedData.getCursor()).isEqualTo(10);
+	}
+
+	@Test
+	void cursorFromTheFutureIsAReset() {
+		ChangeLog changeLog = new ChangeLog(10);
+		appendChanges(changeLog, 3);
+
+		ChangeFeedData changeFeedData = changeLog.readSince(50, 100);
+
+		assertThat(changeFeedData.isReset()).isTrue();
+		assertThat(changeFeedData.getChanges()).extracting(ChangeEvent::getCursor).containsExactly(1L, 2L, 3L);
+	}
+
+	@Test
+	void subscribeReplaysTheBacklogAndThenDeliversNewChanges() {
+		ChangeLog changeLog = new ChangeLog(10);
+		RecordingListener listener = new RecordingListener();
+		appendChanges(changeLog, 3);
+
+		changeLog.subscribe(1, listener);
+		appendChanges(changeLog, 2);
+
+		assertThat(listener.resets).isZero();
+		assertThat(listener.cursors).containsExactly(2L, 3L, 4L, 5L);
+
+		changeLog.unsubscribe(listener);
+		appendChanges(changeLog, 1);
+
+		assertThat(listener.cursors).containsExactly(2L, 3L, 4L, 5L);
+	}
+
+	@Test
+	void subscribeWithAnOldCursorSignalsAResetFirst() {
+		ChangeLog changeLog = new ChangeLog(2);
+		RecordingListener listener = new RecordingListener();
+		appendChanges(changeLog, 5);
+
+		changeLog.subscribe(0, listener);
+
+		assertThat(listener.resets).isEqualTo(1);
+		assertThat(listener.cursors).containsExactly(4L, 5L);
+	}
+
+	@Test
+	void subscribeStopsReplayingToAListenerThatIsDone() {
+		ChangeLog changeLog = new ChangeLog(10);
+		RecordingListener listener = new RecordingListener(2);
+		appendChanges(changeLog, 5);
+
+		changeLog.subscribe(0, listener);
+		appendChanges(changeLog, 1);
+
+		assertThat(listener.cursors).containsExactly(1L, 2L);
+	}
+
+	private void appendChanges(ChangeLog changeLog, int count) {
+		for (int i = 0; i < count; i++) {
+			long id = changeLog.getCursor() + 1;
+			changeLog.append(new PetStoreChangedEvent(EntityType.PET_STORE, Action.SAVED, id, id));
+		}
+	}
+
+	private static class RecordingListener implements ChangeLog.Listener {
+		private final List<Long> cursors = new ArrayList<>();
+		private final int maxChanges;
+		private int resets;
+
+		RecordingListener() {
+			this(Integer.MAX_VALUE);
+		}
+
+		RecordingListener(int maxChanges) {
+			this.maxChanges = maxChanges;
+		}
+
+		@Override
+		public void onChange(ChangeEvent changeEvent) {
+			cursors.add(changeEvent.getCursor());
+		}
+
+		@Override
+		public void onReset() {
+			resets++;
+		}
+
+		@Override
+		public boolean isDone() {
+			return cursors.size() >= maxChanges;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package pet.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import pet.store.controller.model.PetStoreData;
+
+class GeoIndexTest {
+
+	@Test
+	void nearestMatchesABruteForceSearch() {
+		Random random = new Random(42);
+		GeoIndex geoIndex = new GeoIndex();
+		Map<Long, GeoPoint> locations = new HashMap<>();
+
+		for (long id = 1; id <= 2000; id++) {
+			GeoPoint location = randomPoint(random);
+			locations.put(id, location);
+			geoIndex.put(petStore(id), location);
+		}
+
+		for (int query = 0; query < 200; query++) {
+			GeoPoint origin = randomPoint(random);
+			int k = 1 + random.nextInt(20);
+			Double radiusKm = random.nextBoolean() ? null : 500 + random.nextDouble() * 3000;
+
+			List<Long> expected = bruteForceNearest(locations, origin, k, radiusKm);
+			List<GeoIndex.Hit> hits = geoIndex.nearest(origin, k, radiusKm);
+
+			assertThat(hits).extracting(hit -> hit.petStore().getPetStoreId()).containsExactlyElementsOf(expected);
+
+			for (GeoIndex.Hit hit : hits) {
+				assertThat(hit.distanceKm())
+						.isCloseTo(distanceKm(origin, locations.get(hit.petStore().getPetStoreId())), within(1e-6));
+			}
+		}
+	}
+
+	@Test
+	void pointsAcrossTheDateLineAreNeighbors() {
+		GeoIndex geoIndex = new GeoIndex();
+		geoIndex.put(petStore(1L), new GeoPoint(0, 179.9));
+		geoIndex.put(petStore(2L), new GeoPoint(0, 170));
+
+		List<GeoIndex.Hit> hits = geoIndex.nearest(new GeoPoint(0, -179.9), 1, null);
+
+		assertThat(hits).singleElement().satisfies(hit -> {
+			assertThat(hit.petStore().getPetStoreId()).isEqualTo(1L);
+			assertThat(hit.distanceKm()).isCloseTo(22.24, within(0.01));
+		});
+	}
+
+	@Test
+	void putMovesAndRemoveDropsAPetStore() {
+		GeoIndex geoIndex = new GeoIndex();
+		GeoPoint origin = new GeoPoint(40.76, -111.89);
+
+		geoIndex.put(petStore(1L), new GeoPoint(40.7, -111.9));
+		geoIndex.put(petStore(2L), new GeoPoint(41.2, -111.9));
+		assertThat(geoIndex.nearest(origin, 1, null)).extracting(hit -> hit.petStore().getPetStoreId())
+				.containsExactly(1L);
+
+		geoIndex.put(petStore(1L), new GeoPoint(45, -100));
+		assertThat(geoIndex.size()).isEqualTo(2);
+		assertThat(geoIndex.nearest(origin, 1, null)).extracting(hit -> hit.petStore().getPetStoreId())
+				.containsExactly(2L);
+
+		geoIndex.remove(2L);
+		assertThat(geoIndex.nearest(origin, 5, null)).extracting(hit -> hit.petStore().getPetStoreId())
+				.containsExactly(1L);
+		assertThat(geoIndex.nearest(origin, 5, 100.0)).isEmpty();
+
+		geoIndex.clear();
+		assertThat(geoIndex.size()).isZero();
+		assertThat(geoIndex.nearest(origin, 5, null)).isEmpty();
+	}
+
+	private List<Long> bruteForceNearest(Map<Long, GeoPoint> locations, GeoPoint origin, int k, Double radiusKm) {
+		List<Map.Entry<Long, Double>> distances = new ArrayList<>();
+
+		for (Map.Entry<Long, GeoPoint> location : locations.entrySet()) {
+			double distanceKm = distanceKm(origin, location.getValue());
+
+			if (Objects.isNull(radiusKm) || distanceKm <= radiusKm) {
+				distances.add(Map.entry(location.getKey(), distanceKm));
+			}
+		}
+
+		return distances.stream().sorted(Map.Entry.comparingByValue(Comparator.naturalOrder())).limit(k)
+				.map(Map.Entry::getKey).toList();
+	}
+
+	/*
+	 * The haversine formula, independent of the unit vectors the index uses.
+	 */
+	private double distanceKm(GeoPoint a, GeoPoint b) {
+		double dLat = Math.toRadians(b.latitude() - a.latitude());
+		double dLon = Math.toRadians(b.longitude() - a.longitude());
+		double h = Math.pow(Math.sin(dLat / 2), 2) + Math.cos(Math.toRadians(a.latitude()))
+				* Math.cos(Math.toRadians(b.latitude())) * Math.pow(Math.sin(dLon / 2), 2);
+
+		return 2 * GeoPoint.EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+
+	private GeoPoint randomPoint(Random random) {
+		return new GeoPoint(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+	}
+
+	private PetStoreData petStore(Long petStoreId) {
+		PetStoreData petStoreData = new PetStoreData();
+		petStoreData.setPetStoreId(petStoreId);
+		return petStoreData;
+	}
+}
@@ -0,0 +1,101 @@
+package pet.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import pet.store.controller.model.PatchResultData;
+import pet.store.controller.model.PetStoreCustomer;
+import pet.store.controller.model.PetStoreData;
+import pet.store.controller.model.PetStoreEmployee;
+
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:bulk_patch;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa", "spring.datasource.password=", "spring.jpa.show-sql=false" })
+class PetStoreBulkPatchTest {
+
+	private static final long MISSING_ID = 99_999_999L;
+
+	@Autowired
+	private PetStoreService petStoreService;
+
+	@Test
+	void itemsWithoutFieldsAreOnlyUpdatedWhenTheRowExists() {
+		Long petStoreId = savePetStore("Bulk Store");
+
+		PatchResultData result = petStoreService
+				.patchPetStores(List.of(Map.of("petStoreId", petStoreId), Map.of("petStoreId", MISSING_ID)));
+
+		assertThat(result.getUpdatedIds()).containsExactly(petStoreId);
+		assertThat(result.getMissingIds()).containsExactly(MISSING_ID);
+	}
+
+	@Test
+	void employeesOutsideThePetStoreAreMissing() {
+		Long petStoreId = savePetStore("Employee Store");
+		Long otherPetStoreId = savePetStore("Other Store");
+		Long employeeId = saveEmployee(petStoreId);
+		Long otherEmployeeId = saveEmployee(otherPetStoreId);
+
+		PatchResultData result = petStoreService.patchEmployees(petStoreId,
+				List.of(Map.of("employeeId", employeeId), Map.of("employeeId", otherEmployeeId),
+						Map.of("employeeId", MISSING_ID),
+						Map.of("employeeId", MISSING_ID + 1, "employeePhoneNumber", "1")));
+
+		assertThat(result.getUpdatedIds()).containsExactly(employeeId);
+		assertThat(result.getMissingIds()).containsExactly(otherEmployeeId, MISSING_ID, MISSING_ID + 1);
+	}
+
+	@Test
+	void singleRowPatchesReturnTheWholeRowAndStayInsideThePetStore() {
+		Long petStoreId = savePetStore("Single Store");
+		Long otherPetStoreId = savePetStore("Other Single Store");
+		Long employeeId = saveEmployee(petStoreId);
+
+		PetStoreEmployee employee = petStoreService.patchEmployee(petStoreId, employeeId,
+				Map.of("employeePhoneNumber", "555-0100"));
+
+		assertThat(employee.getEmployeePhoneNumber()).isEqualTo("555-0100");
+		assertThat(employee.getEmployeeLastName()).isEqualTo("Patched");
+		assertThat(petStoreService.patchEmployee(petStoreId, employeeId, Map.of()).getEmployeePhoneNumber())
+				.isEqualTo("555-0100");
+
+		assertThatThrownBy(() -> petStoreService.patchEmployee(otherPetStoreId, employeeId, Map.of()))
+				.isInstanceOf(NoSuchElementException.class);
+		assertThatThrownBy(
+				() -> petStoreService.patchEmployee(otherPetStoreId, employeeId, Map.of("employeePhoneNumber", "1")))
+				.isInstanceOf(NoSuchElementException.class);
+		assertThatThrownBy(() -> petStoreService.patchPetStore(MISSING_ID, Map.of()))
+				.isInstanceOf(NoSuchElementException.class);
+
+		PetStoreCustomer customer = new PetStoreCustomer();
+		customer.setCustomerFirstName("Pat");
+		Long customerId = petStoreService.saveCustomer(petStoreId, customer).getCustomerId();
+
+		PetStoreCustomer patched = petStoreService.patchCustomer(petStoreId, customerId,
+				Map.of("customerLastName", "Row"));
+
+		assertThat(patched.getCustomerFirstName()).isEqualTo("Pat");
+		assertThat(patched.getCustomerLastName()).isEqualTo("Row");
+		assertThatThrownBy(() -> petStoreService.patchCustomer(otherPetStoreId, customerId, Map.of()))
+				.isInstanceOf(NoSuchElementException.class);
+	}
+
+	private Long savePetStore(String name) {
+		PetStoreData petStore = new PetStoreData();
+		petStore.setPetStoreName(name);
+		return petStoreService.savePetStore(petStore).getPetStoreId();
+	}
+
+	private Long saveEmployee(Long petStoreId) {
+		PetStoreEmployee employee = new PetStoreEmployee();
+		employee.setEmployeeLastName("Patched");
+		return petStoreService.saveEmployee(petStoreId, employee).getEmployeeId();
+	}
+}
@@ -0,0 +1,130 @@
+package pet.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import pet.store.controller.model.KeysetPage;
+import pet.store.controller.model.PetStoreCustomer;
+import pet.store.controller.model.PetStoreData;
+import pet.store.controller.model.PetStoreEmployee;
+
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:listing;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa", "spring.datasource.password=", "spring.jpa.show-sql=false" })
+class PetStoreListingTest {
+
+	@Autowired
+	private PetStoreService petStoreService;
+
+	@Test
+	void employeePagesContinueFromNextAfterId() {
+		Long petStoreId = savePetStore();
+		List<Long> employeeIds = new ArrayList<>();
+
+		for (int i = 0; i < 5; i++) {
+			employeeIds.add(saveEmployee(petStoreId, "Last" + i, "Clerk"));
+		}
+
+		/* Employees of another store never show up in this store's pages. */
+		saveEmployee(savePetStore(), "Elsewhere", "Clerk");
+
+		List<Long> seen = new ArrayList<>();
+		List<Long> cursors = new ArrayList<>();
+		Long afterId = null;
+
+		do {
+			KeysetPage<PetStoreEmployee> page = petStoreService.retrieveEmployees(petStoreId, afterId, 2, null, null);
+
+			assertThat(page.getItems()).hasSizeLessThanOrEqualTo(2);
+			page.getItems().forEach(employee -> seen.add(employee.getEmployeeId()));
+			afterId = page.getNextAfterId();
+			cursors.add(afterId);
+		} while (afterId != null);
+
+		assertThat(seen).containsExactlyElementsOf(employeeIds);
+		assertThat(cursors).containsExactly(employeeIds.get(1), employeeIds.get(3), null);
+	}
+
+	@Test
+	void employeesCanBeFilteredByJobTitleAndLastNamePrefix() {
+		Long petStoreId = savePetStore();
+		Long groomerSmith = saveEmployee(petStoreId, "Smith", "Groomer");
+		Long groomerSmythe = saveEmployee(petStoreId, "Smythe", "Groomer");
+		Long cashierSmith = saveEmployee(petStoreId, "Smithers", "Cashier");
+
+		assertThat(employeeIds(petStoreId, "Groomer", null)).containsExactly(groomerSmith, groomerSmythe);
+		assertThat(employeeIds(petStoreId, null, "Smi")).containsExactly(groomerSmith, cashierSmith);
+		assertThat(employeeIds(petStoreId, "Groomer", "Smi")).containsExactly(groomerSmith);
+		assertThat(employeeIds(petStoreId, " ", " ")).containsExactly(groomerSmith, groomerSmythe, cashierSmith);
+	}
+
+	@Test
+	void customerPagesAreFilteredByLastNamePrefix() {
+		Long petStoreId = savePetStore();
+		Long brown = saveCustomer(petStoreId, "Brown");
+		Long brooks = saveCustomer(petStoreId, "Brooks");
+		saveCustomer(petStoreId, "Adams");
+		Long bryant = saveCustomer(petStoreId, "Bryant");
+		saveCustomer(savePetStore(), "Brennan");
+
+		KeysetPage<PetStoreCustomer> first = petStoreService.retrieveCustomers(petStoreId, null, 2, "Br");
+		KeysetPage<PetStoreCustomer> second = petStoreService.retrieveCustomers(petStoreId, first.getNextAfterId(),
+				2, "Br");
+
+		assertThat(first.getItems()).extracting(PetStoreCustomer::getCustomerId).containsExactly(brown, brooks);
+		assertThat(first.getNextAfterId()).isEqualTo(brooks);
+		assertThat(second.getItems()).extracting(PetStoreCustomer::getCustomerId).containsExactly(bryant);
+		assertThat(second.getNextAfterId()).isNull();
+	}
+
+	@Test
+	void likeWildcardsInTheLastNamePrefixMatchLiterally() {
+		Long petStoreId = savePetStore();
+		Long percent = saveEmployee(petStoreId, "100%Pure", null);
+		Long underscore = saveEmployee(petStoreId, "A_B", null);
+		Long backslash = saveEmployee(petStoreId, "C\\D", null);
+		saveEmployee(petStoreId, "100 Acres", null);
+		saveEmployee(petStoreId, "AxB", null);
+		saveEmployee(petStoreId, "CxD", null);
+
+		assertThat(employeeIds(petStoreId, null, "100%")).containsExactly(percent);
+		assertThat(employeeIds(petStoreId, null, "A_")).containsExactly(underscore);
+		assertThat(employeeIds(petStoreId, null, "C\\")).containsExactly(backslash);
+		assertThat(employeeIds(petStoreId, null, "%")).isEmpty();
+
+		Long customer = saveCustomer(petStoreId, "O_Neil");
+		saveCustomer(petStoreId, "OxNeil");
+
+		assertThat(petStoreService.retrieveCustomers(petStoreId, null, null, "O_").getItems())
+				.extracting(PetStoreCustomer::getCustomerId).containsExactly(customer);
+	}
+
+	private List<Long> employeeIds(Long petStoreId, String jobTitle, String lastNamePrefix) {
+		return petStoreService.retrieveEmployees(petStoreId, null, null, jobTitle, lastNamePrefix).getItems().stream()
+				.map(PetStoreEmployee::getEmployeeId).toList();
+	}
+
+	private Long savePetStore() {
+		PetStoreData petStore = new PetStoreData();
+		petStore.setPetStoreName("Listing Store");
+		return petStoreService.savePetStore(petStore).getPetStoreId();
+	}
+
+	private Long saveEmployee(Long petStoreId, String lastName, String jobTitle) {
+		PetStoreEmployee employee = new PetStoreEmployee();
+		employee.setEmployeeLastName(lastName);
+		employee.setEmployeeJobTitle(jobTitle);
+		return petStoreService.saveEmployee(petStoreId, employee).getEmployeeId();
+	}
+
+	private Long saveCustomer(Long petStoreId, String lastName) {
+		PetStoreCustomer customer = new PetStoreCustomer();
+		customer.setCustomerLastName(lastName);
+		return petStoreService.saveCustomer(petStoreId, customer).getCustomerId();
+	}
+}
@@ -0,0 +1,100 @@
+package pet.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+
+import pet.store.controller.model.PetStoreData;
+import pet.store.controller.model.PetStoreEmployee;
+import pet.store.controller.model.PetStoreMultiGetData;
+
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:multi_get_cache;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa", "spring.datasource.password=", "spring.jpa.show-sql=false" })
+class PetStoreMultiGetCacheTest {
+
+	@TestConfiguration
+	static class CacheConfig {
+		@Bean
+		CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager(PetStoreService.PET_STORE_CACHE);
+		}
+	}
+
+	@Autowired
+	private PetStoreService petStoreService;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Test
+	void cacheHoldsSummariesAndExpandedRequestsLoadCollections() {
+		PetStoreData petStore = new PetStoreData();
+		petStore.setPetStoreName("Cached Store");
+		Long petStoreId = petStoreService.savePetStore(petStore).getPetStoreId();
+
+		PetStoreEmployee employee = new PetStoreEmployee();
+		employee.setEmployeeLastName("Keeper");
+		petStoreService.saveEmployee(petStoreId, employee);
+
+		PetStoreMultiGetData summary = petStoreService.retrievePetStoresByIds(List.of(petStoreId), null);
+
+		assertThat(summary.getPetStores()).singleElement()
+				.satisfies(data -> assertThat(data.getEmployees()).isEmpty());
+
+		PetStoreData cached = cacheManager.getCache(PetStoreService.PET_STORE_CACHE).get(petStoreId,
+				PetStoreData.class);
+
+		assertThat(cached).isNotNull();
+		assertThat(cached.getEmployees()).isEmpty();
+		assertThat(cached.getCustomers()).isEmpty();
+
+		PetStoreMultiGetData expanded = petStoreService.retrievePetStoresByIds(List.of(petStoreId),
+				List.of("employees"));
+
+		assertThat(expanded.getPetStores()).singleElement().satisfies(data -> {
+			assertThat(data.getEmployees()).extracting(PetStoreEmployee::getEmployeeLastName)
+					.containsExactly("Keeper");
+			assertThat(data.getCustomers()).isEmpty();
+		});
+	}
+
+	@Test
+	void writesEvictTheCachedPetStore() {
+		PetStoreData petStore = new PetStoreData();
+		petStore.setPetStoreName("Before");
+		Long petStoreId = petStoreService.savePetStore(petStore).getPetStoreId();
+
+		assertThat(names(petStoreId)).containsExactly("Before");
+
+		petStore.setPetStoreId(petStoreId);
+		petStore.setPetStoreName("Saved");
+		petStoreService.savePetStore(petStore);
+		assertThat(names(petStoreId)).containsExactly("Saved");
+
+		petStoreService.patchPetStore(petStoreId, Map.of("petStoreName", "Patched"));
+		assertThat(names(petStoreId)).containsExactly("Patched");
+
+		petStoreService.patchPetStores(List.of(Map.of("petStoreId", petStoreId, "petStoreName", "Bulk Patched")));
+		assertThat(names(petStoreId)).containsExactly("Bulk Patched");
+
+		petStoreService.deletePetStoreById(petStoreId);
+		PetStoreMultiGetData afterDelete = petStoreService.retrievePetStoresByIds(List.of(petStoreId), null);
+
+		assertThat(afterDelete.getPetStores()).isEmpty();
+		assertThat(afterDelete.getMissingIds()).containsExactly(petStoreId);
+	}
+
+	private List<String> names(Long petStoreId) {
+		return petStoreService.retrievePetStoresByIds(List.of(petStoreId), null).getPetStores().stream()
+				.map(PetStoreData::getPetStoreName).toList();
+	}
+}
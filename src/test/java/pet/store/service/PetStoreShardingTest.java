@@ -0,0 +1,186 @@
+package pet.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import pet.store.controller.model.ChangeEvent.EntityType;
+import pet.store.controller.model.PetStoreCustomer;
+import pet.store.controller.model.PetStoreData;
+import pet.store.controller.model.PetStoreEmployee;
+import pet.store.controller.model.PetStoreMultiGetData;
+import pet.store.controller.model.SearchResultData;
+import pet.store.dao.shard.ShardRouter;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("sharded-local")
+class PetStoreShardingTest {
+
+	@Autowired
+	private PetStoreService petStoreService;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private SearchService searchService;
+
+	@Test
+	void newPetStoresAreSpreadRoundRobinAndRoutedByTheirIds() {
+		int shardCount = shardRouter.getShardCount();
+		assertThat(shardCount).isGreaterThan(1);
+
+		List<Long> ids = savePetStores(shardCount * 2);
+
+		for (int i = 1; i < ids.size(); i++) {
+			int previousShard = shardRouter.shardFor(ids.get(i - 1));
+			assertThat(shardRouter.shardFor(ids.get(i))).isEqualTo((previousShard + 1) % shardCount);
+		}
+
+		for (Long id : ids) {
+			int shard = shardRouter.shardFor(id);
+
+			assertThat(id).isBetween(shardRouter.getIdRangeStart(shard), shardRouter.getIdRangeStart(shard + 1) - 1);
+			assertThat(petStoreService.retrievePetStoreById(id).getPetStoreId()).isEqualTo(id);
+		}
+	}
+
+	@Test
+	void methodsGivenAPetStoreIdSelectItsShardThemselves() {
+		Long petStoreId = savePetStores(shardRouter.getShardCount()).stream()
+				.filter(id -> shardRouter.shardFor(id) != 0).findFirst().orElseThrow();
+
+		PetStoreEmployee employee = new PetStoreEmployee();
+		employee.setEmployeeLastName("Remote");
+		Long employeeId = petStoreService.saveEmployee(petStoreId, employee).getEmployeeId();
+
+		assertThat(shardRouter.shardFor(employeeId)).isEqualTo(shardRouter.shardFor(petStoreId));
+		assertThat(petStoreService.retrieveEmployees(petStoreId, null, null, null, null).getItems())
+				.extracting(PetStoreEmployee::getEmployeeId).containsExactly(employeeId);
+
+		petStoreService.patchPetStore(petStoreId, Map.of("petStoreName", "Patched Remote"));
+		assertThat(petStoreService.retrievePetStoreById(petStoreId).getPetStoreName()).isEqualTo("Patched Remote");
+
+		petStoreService.deletePetStoreById(petStoreId);
+		assertThatThrownBy(() -> petStoreService.retrievePetStoreById(petStoreId))
+				.isInstanceOf(NoSuchElementException.class);
+	}
+
+	@Test
+	void retrieveAllPetStoresMergesEveryShardInIdOrder() {
+		List<Long> ids = savePetStores(shardRouter.getShardCount());
+
+		List<Long> allIds = petStoreService.retrieveAllPetStores().stream().map(PetStoreData::getPetStoreId).toList();
+
+		assertThat(allIds).containsAll(ids).isSortedAccordingTo(Comparator.naturalOrder());
+		assertThat(allIds.stream().map(shardRouter::shardFor).distinct()).hasSize(shardRouter.getShardCount());
+	}
+
+	@Test
+	void multiGetLoadsFromEveryShardInRequestedOrder() {
+		List<Long> ids = new ArrayList<>(savePetStores(shardRouter.getShardCount()));
+		Long missingId = shardRouter.getIdRangeStart(1) + 1_000_000;
+		ids.add(1, missingId);
+		List<Long> requested = new ArrayList<>(ids);
+		Collections.reverse(requested);
+
+		PetStoreMultiGetData result = petStoreService.retrievePetStoresByIds(requested, null);
+
+		assertThat(result.getPetStores()).extracting(PetStoreData::getPetStoreId)
+				.containsExactlyElementsOf(requested.stream().filter(id -> !id.equals(missingId)).toList());
+		assertThat(result.getMissingIds()).containsExactly(missingId);
+	}
+
+	@Test
+	void customersJoinPetStoresOnOtherShardsAndEditsReachEveryCopy() {
+		List<Long> ids = savePetStores(2);
+		Long homeStoreId = ids.get(0);
+		Long otherStoreId = ids.get(1);
+		int homeShard = shardRouter.shardFor(homeStoreId);
+		int otherShard = shardRouter.shardFor(otherStoreId);
+		assertThat(otherShard).isNotEqualTo(homeShard);
+
+		PetStoreCustomer customer = new PetStoreCustomer();
+		customer.setCustomerFirstName("Ada");
+		customer.setCustomerLastName("Shard");
+		Long customerId = petStoreService.saveCustomer(homeStoreId, customer).getCustomerId();
+
+		assertThat(customerId).isBetween(shardRouter.getIdRangeStart(homeShard),
+				shardRouter.getIdRangeStart(homeShard + 1) - 1);
+
+		customer.setCustomerId(customerId);
+		assertThatThrownBy(() -> petStoreService.saveCustomer(otherStoreId, customer))
+				.isInstanceOf(NoSuchElementException.class);
+
+		assertThat(petStoreService.addCustomer(otherStoreId, customerId).getCustomerLastName()).isEqualTo("Shard");
+		assertThat(petStoreService.retrievePetStoreById(otherStoreId).getCustomers())
+				.extracting(PetStoreCustomer::getCustomerId).containsExactly(customerId);
+		assertThat(petStoreService.retrieveCustomers(otherStoreId, null, null, "Sh").getItems())
+				.extracting(PetStoreCustomer::getCustomerId).containsExactly(customerId);
+
+		/* The copy doesn't move the other shard's counter, so its new customers stay in its range. */
+		PetStoreCustomer local = new PetStoreCustomer();
+		local.setCustomerLastName("Local");
+		assertThat(petStoreService.saveCustomer(otherStoreId, local).getCustomerId())
+				.isBetween(shardRouter.getIdRangeStart(otherShard), shardRouter.getIdRangeStart(otherShard + 1) - 1);
+
+		petStoreService.patchCustomer(otherStoreId, customerId, Map.of("customerEmail", "ada@example.com"));
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(customerOf(homeStoreId, customerId)
+				.getCustomerEmail()).isEqualTo("ada@example.com"));
+
+		customer.setCustomerEmail("ada@shard.example.com");
+		petStoreService.saveCustomer(homeStoreId, customer);
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(customerOf(otherStoreId, customerId)
+				.getCustomerEmail()).isEqualTo("ada@shard.example.com"));
+
+		assertThat(customerOf(homeStoreId, customerId).getCustomerFirstName()).isEqualTo("Ada");
+
+		/* The search index has one document for the customer, with the pet stores of both copies. */
+		await().atMost(Duration.ofSeconds(5))
+				.untilAsserted(() -> assertThat(searchService.search("ada@shard", null, EntityType.CUSTOMER, 10))
+						.singleElement().extracting(SearchResultData::getPetStoreIds)
+						.isEqualTo(new TreeSet<>(List.of(homeStoreId, otherStoreId))));
+	}
+
+	@Test
+	void addingAnUnknownCustomerIsRejected() {
+		Long petStoreId = savePetStores(1).get(0);
+		Long unknownId = shardRouter.getIdRangeStart(1) + 1_000_000;
+
+		assertThatThrownBy(() -> petStoreService.addCustomer(petStoreId, unknownId))
+				.isInstanceOf(NoSuchElementException.class);
+		assertThatThrownBy(() -> petStoreService.addCustomer(petStoreId, -1L))
+				.isInstanceOf(NoSuchElementException.class);
+	}
+
+	private PetStoreCustomer customerOf(Long petStoreId, Long customerId) {
+		return petStoreService.retrievePetStoreById(petStoreId).getCustomers().stream()
+				.filter(customer -> customer.getCustomerId().equals(customerId)).findFirst().orElseThrow();
+	}
+
+	private List<Long> savePetStores(int count) {
+		List<Long> ids = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			PetStoreData petStore = new PetStoreData();
+			petStore.setPetStoreName("Sharded Store " + i);
+			ids.add(petStoreService.savePetStore(petStore).getPetStoreId());
+		}
+
+		return ids;
+	}
+}
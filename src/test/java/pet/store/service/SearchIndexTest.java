@@ -0,0 +1,117 @@
+package pet.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import pet.store.controller.model.ChangeEvent.EntityType;
+import pet.store.controller.model.SearchResultData;
+
+class SearchIndexTest {
+
+	@Test
+	void everyQueryWordMustMatchTheStartOfAWord() {
+		SearchIndex searchIndex = new SearchIndex();
+		searchIndex.put(EntityType.CUSTOMER, 1, "John", "Smith", "john.smith@example.com", Set.of(10L));
+		searchIndex.put(EntityType.CUSTOMER, 2, "Joan", "Smithers", null, Set.of(10L));
+		searchIndex.put(EntityType.CUSTOMER, 3, "Mary", "Jones", null, Set.of(10L));
+
+		assertThat(ids(searchIndex.search("jo smi", null, null, 10))).containsExactlyInAnyOrder(1L, 2L);
+		assertThat(ids(searchIndex.search("JOHN", null, null, 10))).containsExactly(1L);
+		assertThat(ids(searchIndex.search("ohn", null, null, 10))).isEmpty();
+		assertThat(ids(searchIndex.search("john jones", null, null, 10))).isEmpty();
+		assertThat(searchIndex.search(" ,; ", null, null, 10)).isEmpty();
+	}
+
+	@Test
+	void wholeWordAndNameMatchesRankFirst() {
+		SearchIndex searchIndex = new SearchIndex();
+		searchIndex.put(EntityType.EMPLOYEE, 1, "Ann", "Groomer", "Manager", Set.of(10L));
+		searchIndex.put(EntityType.EMPLOYEE, 2, "Bob", "Miller", "Groomer", Set.of(10L));
+		searchIndex.put(EntityType.EMPLOYEE, 3, "Cy", "Groomers", null, Set.of(10L));
+
+		List<SearchResultData> results = searchIndex.search("groomer", null, null, 10);
+
+		assertThat(ids(results)).containsExactly(1L, 3L, 2L);
+		assertThat(results).extracting(SearchResultData::getScore).containsExactly(6, 3, 2);
+		assertThat(ids(searchIndex.search("groomer", null, null, 2))).containsExactly(1L, 3L);
+	}
+
+	@Test
+	void emailsAreSplitIntoWords() {
+		SearchIndex searchIndex = new SearchIndex();
+		searchIndex.put(EntityType.CUSTOMER, 1, "Pat", "Lee", "pat.lee@petmail.org", Set.of(10L));
+
+		assertThat(ids(searchIndex.search("petmail", null, null, 10))).containsExactly(1L);
+		assertThat(ids(searchIndex.search("pat.lee@petmail.org", null, null, 10))).containsExactly(1L);
+	}
+
+	@Test
+	void resultsCanBeFilteredByPetStoreAndEntityType() {
+		SearchIndex searchIndex = new SearchIndex();
+		searchIndex.put(EntityType.CUSTOMER, 1, "Sam", "Park", null, Set.of(10L, 20L));
+		searchIndex.put(EntityType.EMPLOYEE, 1, "Sam", "Park", "Cashier", Set.of(20L));
+		searchIndex.put(EntityType.EMPLOYEE, 2, "Sam", "Park", "Cashier", Set.of(30L));
+
+		assertThat(searchIndex.search("sam", 20L, null, 10))
+				.extracting(SearchResultData::getEntityType, SearchResultData::getId)
+				.containsExactlyInAnyOrder(tuple(EntityType.CUSTOMER, 1L), tuple(EntityType.EMPLOYEE, 1L));
+		assertThat(ids(searchIndex.search("sam", null, EntityType.EMPLOYEE, 10))).containsExactly(1L, 2L);
+		assertThat(ids(searchIndex.search("sam", 10L, EntityType.EMPLOYEE, 10))).isEmpty();
+		assertThat(searchIndex.search("sam", 10L, null, 10)).singleElement()
+				.satisfies(result -> assertThat(result.getPetStoreIds()).containsExactly(10L, 20L));
+	}
+
+	@Test
+	void putReplacesTheOldWords() {
+		SearchIndex searchIndex = new SearchIndex();
+		searchIndex.put(EntityType.CUSTOMER, 1, "Kim", "Old", null, Set.of(10L));
+		searchIndex.put(EntityType.CUSTOMER, 1, "Kim", "New", null, Set.of(20L));
+
+		assertThat(searchIndex.size()).isEqualTo(1);
+		assertThat(searchIndex.search("old", null, null, 10)).isEmpty();
+		assertThat(ids(searchIndex.search("new", 20L, null, 10))).containsExactly(1L);
+		assertThat(searchIndex.search("kim", 10L, null, 10)).isEmpty();
+
+		searchIndex.remove(EntityType.CUSTOMER, 1);
+
+		assertThat(searchIndex.size()).isZero();
+		assertThat(searchIndex.search("kim", null, null, 10)).isEmpty();
+	}
+
+	@Test
+	void removePetStoreDropsItsEmployeesAndKeepsItsCustomers() {
+		SearchIndex searchIndex = new SearchIndex();
+		searchIndex.put(EntityType.EMPLOYEE, 1, "Lou", "Staff", null, Set.of(10L));
+		searchIndex.put(EntityType.CUSTOMER, 2, "Lou", "Buyer", null, Set.of(10L, 20L));
+
+		searchIndex.removePetStore(10L);
+
+		assertThat(searchIndex.size()).isEqualTo(1);
+		assertThat(searchIndex.search("lou", null, null, 10)).singleElement().satisfies(result -> {
+			assertThat(result.getEntityType()).isEqualTo(EntityType.CUSTOMER);
+			assertThat(result.getPetStoreIds()).containsExactly(20L);
+		});
+		assertThat(searchIndex.search("lou", 10L, null, 10)).isEmpty();
+	}
+
+	@Test
+	void mergeKeepsThePetStoresOfEveryCopy() {
+		SearchIndex searchIndex = new SearchIndex();
+		searchIndex.merge(EntityType.CUSTOMER, 1, "Ada", "Shard", "ada@old.example.com", Set.of(10L));
+		searchIndex.merge(EntityType.CUSTOMER, 1, "Ada", "Shard", "ada@new.example.com", Set.of(20L));
+
+		assertThat(searchIndex.size()).isEqualTo(1);
+		assertThat(searchIndex.search("old", null, null, 10)).isEmpty();
+		assertThat(searchIndex.search("ada@new", 10L, null, 10)).singleElement()
+				.satisfies(result -> assertThat(result.getPetStoreIds()).containsExactly(10L, 20L));
+	}
+
+	private List<Long> ids(List<SearchResultData> results) {
+		return results.stream().map(SearchResultData::getId).toList();
+	}
+}
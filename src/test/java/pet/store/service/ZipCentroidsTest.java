@@ -0,0 +1,56 @@
+package pet.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+class ZipCentroidsTest {
+
+	/* The layout of the Census ZCTA gazetteer, with its padded last header. */
+	private static final String GAZETTEER = """
+			GEOID\tALAND\tAWATER\tALAND_SQMI\tAWATER_SQMI\tINTPTLAT\tINTPTLONG    \r
+			00601\t166847909\t799292\t64.42\t0.309\t18.180555\t-66.749961    \r
+			84101\t5165371\t0\t1.994\t0\t40.756177\t-111.900695    \r
+			""";
+
+	@Test
+	void theBundledSampleIsLoaded() {
+		ZipCentroids zipCentroids = new ZipCentroids(new ClassPathResource("geo/zip-centroids.csv"));
+
+		assertThat(zipCentroids.find("84101-1234")).isPresent();
+		assertThat(zipCentroids.find("zip,l")).isEmpty();
+	}
+
+	@Test
+	void theGazetteerIsReadAsPublished() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry("2023_Gaz_zcta_national.txt"));
+			zip.write(GAZETTEER.getBytes(StandardCharsets.UTF_8));
+		}
+
+		ZipCentroids zipCentroids = new ZipCentroids(new ByteArrayResource(bytes.toByteArray()) {
+			@Override
+			public String getFilename() {
+				return "2023_Gaz_zcta_national.zip";
+			}
+		});
+
+		assertThat(zipCentroids.find("00601")).hasValueSatisfying(point -> {
+			assertThat(point.latitude()).isCloseTo(18.180555, within(1e-9));
+			assertThat(point.longitude()).isCloseTo(-66.749961, within(1e-9));
+		});
+		assertThat(zipCentroids.find("84101")).isPresent();
+		assertThat(zipCentroids.find("GEOID")).isEmpty();
+	}
+}